@@ -0,0 +1,52 @@
+package com.darlandi.carpoolingchallenge.benchmarks;
+
+import com.darlandi.carpoolingchallenge.services.JourneyService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Assign a car to a new journey and drop it off, with an idle fleet.
+ * Half of the cars are already full, so the assignment skips their buckets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AssignBenchmark {
+
+    @Param({"memory", "redis"})
+    public String store;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int fleetSize;
+
+    private ConfigurableApplicationContext context;
+    private JourneyService journeyService;
+    private long nextJourneyId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(store);
+        journeyService = context.getBean(JourneyService.class);
+        BenchmarkApplication.loadFleet(context, fleetSize, 6);
+        for (nextJourneyId = 1; nextJourneyId <= fleetSize / 2; nextJourneyId++) {
+            BenchmarkApplication.register(context, nextJourneyId, 6);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void assignAndDropOff() throws Exception {
+        long journeyId = nextJourneyId++;
+        BenchmarkApplication.register(context, journeyId, 2);
+        journeyService.dropOffGroup(journeyId);
+    }
+}
@@ -0,0 +1,74 @@
+package com.darlandi.carpoolingchallenge.benchmarks;
+
+import com.darlandi.carpoolingchallenge.CarPoolingChallengeApplication;
+import com.darlandi.carpoolingchallenge.controller.embeddedRedisConfigurationTest.TestRedisConfiguration;
+import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.entities.JourneyDataTransferObject;
+import com.darlandi.carpoolingchallenge.exceptions.BadInputException;
+import com.darlandi.carpoolingchallenge.repository.JourneyRepository;
+import com.darlandi.carpoolingchallenge.services.CarPoolingService;
+import com.darlandi.carpoolingchallenge.services.JourneyService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Start the service for the benchmarks, with the embedded Redis of the tests and the
+ * given store, and load its state. The benchmarks call the services directly from the
+ * JMH thread, the dispatch loop is idle.
+ */
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(String store) {
+        return new SpringApplicationBuilder(TestRedisConfiguration.class, CarPoolingChallengeApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--carpooling.store=" + store, "--logging.level.com.darlandi=WARN");
+    }
+
+    /**
+     * Replace the state with a fleet of cars with IDs from 1 to size.
+     */
+    static void loadFleet(ConfigurableApplicationContext context, int size, int seats) throws BadInputException {
+        List<CarDataTransferObject> cars = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            cars.add(new CarDataTransferObject(id, seats));
+        }
+        context.getBean(JourneyRepository.class).deleteAll();
+        context.getBean(CarPoolingService.class).register(cars);
+    }
+
+    /**
+     * Register a journey as the controller does, it is added to the waiting list if no car is available.
+     *
+     * @return True if a car has been assigned.
+     */
+    static boolean register(ConfigurableApplicationContext context, long journeyId, int people) throws BadInputException {
+        return context.getBean(JourneyService.class).register(new JourneyDataTransferObject(journeyId, people))
+                == JourneyService.AssignmentResult.ASSIGNED;
+    }
+
+    /**
+     * Locate a journey as the controller does.
+     *
+     * @return HTTP status of the response.
+     */
+    static int locate(ConfigurableApplicationContext context, long journeyId) {
+        JourneyService journeyService = context.getBean(JourneyService.class);
+        Optional<Journey> journey = journeyService.getJourney(journeyId);
+        if (journey.isEmpty()) {
+            return 404;
+        }
+        if (journey.get().getCarId() == null) {
+            return 204;
+        }
+        return journeyService.getJourneyCar(journey.get()).isPresent() ? 200 : 404;
+    }
+}
@@ -0,0 +1,69 @@
+package com.darlandi.carpoolingchallenge.benchmarks;
+
+import com.darlandi.carpoolingchallenge.services.JourneyService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drop off a journey from a full fleet and reassign its seats to the oldest waiting
+ * journey, while a new journey joins the waiting list, so the depth of the queue is steady.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DropOffBenchmark {
+    private static final int PEOPLE = 4;
+
+    @Param({"memory", "redis"})
+    public String store;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int fleetSize;
+
+    @Param({"100", "10000", "100000"})
+    public int waitingDepth;
+
+    private ConfigurableApplicationContext context;
+    private JourneyService journeyService;
+    private final ArrayDeque<Long> travelling = new ArrayDeque<>();
+    private final ArrayDeque<Long> waiting = new ArrayDeque<>();
+    private long nextJourneyId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(store);
+        journeyService = context.getBean(JourneyService.class);
+        BenchmarkApplication.loadFleet(context, fleetSize, PEOPLE);
+        travelling.clear();
+        waiting.clear();
+        for (nextJourneyId = 1; nextJourneyId <= fleetSize + waitingDepth; nextJourneyId++) {
+            if (BenchmarkApplication.register(context, nextJourneyId, PEOPLE)) {
+                travelling.add(nextJourneyId);
+            } else {
+                waiting.add(nextJourneyId);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int dropOffAndReassign() throws Exception {
+        journeyService.dropOffGroup(travelling.poll());
+        int assigned = journeyService.reassignWaitingJourneys();
+        // All the journeys have the same size, so the freed car is taken by the oldest waiting one.
+        travelling.add(waiting.poll());
+        BenchmarkApplication.register(context, nextJourneyId, PEOPLE);
+        waiting.add(nextJourneyId++);
+        return assigned;
+    }
+}
@@ -0,0 +1,53 @@
+package com.darlandi.carpoolingchallenge.benchmarks;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.repository.CarPoolingRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read the cars of the fleet.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"memory", "redis"})
+    public String store;
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int fleetSize;
+
+    private ConfigurableApplicationContext context;
+    private CarPoolingRepository carPoolingRepository;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(store);
+        carPoolingRepository = context.getBean(CarPoolingRepository.class);
+        BenchmarkApplication.loadFleet(context, fleetSize, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<Car> get() {
+        return carPoolingRepository.get(ThreadLocalRandom.current().nextLong(1, fleetSize + 1));
+    }
+
+    @Benchmark
+    public int maxSeatsAvailable() {
+        return carPoolingRepository.maxSeatsAvailable();
+    }
+}
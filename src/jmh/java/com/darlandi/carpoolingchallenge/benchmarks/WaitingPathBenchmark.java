@@ -0,0 +1,66 @@
+package com.darlandi.carpoolingchallenge.benchmarks;
+
+import com.darlandi.carpoolingchallenge.services.JourneyService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Requests of a full fleet, where no journey can be assigned: a new journey joins the
+ * waiting list and leaves it, and waiting and unknown journeys are located.
+ * Run with "-prof gc" to compare the allocation of each request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaitingPathBenchmark {
+    private static final int FLEET_SIZE = 1000;
+    private static final int WAITING_DEPTH = 1000;
+    private static final int PEOPLE = 4;
+
+    @Param({"memory", "redis"})
+    public String store;
+
+    private ConfigurableApplicationContext context;
+    private JourneyService journeyService;
+    private long nextJourneyId;
+    private long waitingJourneyId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkApplication.start(store);
+        journeyService = context.getBean(JourneyService.class);
+        BenchmarkApplication.loadFleet(context, FLEET_SIZE, PEOPLE);
+        for (nextJourneyId = 1; nextJourneyId <= FLEET_SIZE + WAITING_DEPTH; nextJourneyId++) {
+            BenchmarkApplication.register(context, nextJourneyId, PEOPLE);
+        }
+        waitingJourneyId = FLEET_SIZE + 1;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean arriveAndLeave() throws Exception {
+        long journeyId = nextJourneyId++;
+        boolean assigned = BenchmarkApplication.register(context, journeyId, PEOPLE);
+        journeyService.dropOffGroup(journeyId);
+        return assigned;
+    }
+
+    @Benchmark
+    public int locateWaiting() {
+        return BenchmarkApplication.locate(context, waitingJourneyId);
+    }
+
+    @Benchmark
+    public int locateUnknown() {
+        return BenchmarkApplication.locate(context, 0);
+    }
+}
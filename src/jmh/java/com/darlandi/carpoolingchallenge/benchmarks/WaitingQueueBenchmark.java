@@ -0,0 +1,77 @@
+package com.darlandi.carpoolingchallenge.benchmarks;
+
+import com.darlandi.carpoolingchallenge.repository.WaitingQueue;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Operations of the waiting list with groups of every size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WaitingQueueBenchmark {
+
+    @Param({"memory", "redis"})
+    public String store;
+
+    @Param({"100", "10000", "100000"})
+    public int depth;
+
+    private ConfigurableApplicationContext context;
+    private WaitingQueue waitingQueue;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(store);
+        waitingQueue = context.getBean(WaitingQueue.class);
+        waitingQueue.clear();
+        for (long journeyId = 1; journeyId <= depth; journeyId++) {
+            waitingQueue.addLast(journeyId, people(journeyId));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Serve the oldest journey and add it again at the end of the queue.
+     */
+    @Benchmark
+    public long serveFirst() {
+        long journeyId = waitingQueue.first().get();
+        waitingQueue.remove(journeyId);
+        waitingQueue.addLast(journeyId, people(journeyId));
+        return journeyId;
+    }
+
+    /**
+     * Drop off a journey from the middle of the queue and add it again at the end.
+     */
+    @Benchmark
+    public long dropOffAny() {
+        long journeyId = ThreadLocalRandom.current().nextLong(1, depth + 1);
+        waitingQueue.remove(journeyId);
+        waitingQueue.addLast(journeyId, people(journeyId));
+        return journeyId;
+    }
+
+    @Benchmark
+    public Optional<Long> firstFitting() {
+        return waitingQueue.firstFitting(3);
+    }
+
+    private static int people(long journeyId) {
+        return Constants.MIN_PEOPLE + (int) (journeyId % Constants.MAX_PEOPLE);
+    }
+}
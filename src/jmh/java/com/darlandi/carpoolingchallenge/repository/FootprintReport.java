@@ -0,0 +1,94 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Heap footprint per car and per journey measured with JOL: the in-memory stores against
+ * the same data kept as entity objects, and as the previous entities with boxed fields.
+ * The IDs are out of the range of the Long cache, like real IDs.
+ * mvn -Pbenchmarks test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.darlandi.carpoolingchallenge.repository.FootprintReport
+ */
+public class FootprintReport {
+    private static final int SIZE = 100_000;
+    private static final long FIRST_ID = 1_000_000L;
+
+    public static void main(String[] args) {
+        System.out.println(VM.current().details());
+        System.out.println(ClassLayout.parseClass(Car.class).toPrintable());
+        System.out.println(ClassLayout.parseClass(Journey.class).toPrintable());
+
+        InMemoryCarStore carStore = new InMemoryCarStore();
+        List<Car> cars = new ArrayList<>(SIZE);
+        Map<Long, BoxedCar> boxedCars = new HashMap<>();
+        for (long id = FIRST_ID; id < FIRST_ID + SIZE; id++) {
+            Car car = new Car(id, 4 + (int) (id % 3));
+            carStore.create(car);
+            cars.add(car);
+            boxedCars.put(id, new BoxedCar(id, car.getSeats(), car.getAvailableSeats()));
+        }
+        report("InMemoryCarStore", "car", carStore);
+        report("List<Car>", "car", cars);
+        report("HashMap<Long, boxed Car>", "car", boxedCars);
+
+        InMemoryJourneyStore journeyStore = new InMemoryJourneyStore();
+        List<Journey> journeys = new ArrayList<>(SIZE);
+        Map<Long, BoxedJourney> boxedJourneys = new HashMap<>();
+        for (long id = FIRST_ID; id < FIRST_ID + SIZE; id++) {
+            Journey journey = new Journey(id, 1 + (int) (id % 6));
+            // Half of the journeys travel in a car, the rest are waiting.
+            Long carId = id % 2 == 0 ? id : null;
+            journey.setCarId(carId);
+            journeyStore.create(journey);
+            journeys.add(journey);
+            boxedJourneys.put(id, new BoxedJourney(id, journey.getPeople(), carId));
+        }
+        report("InMemoryJourneyStore", "journey", journeyStore);
+        report("List<Journey>", "journey", journeys);
+        report("HashMap<Long, boxed Journey>", "journey", boxedJourneys);
+    }
+
+    private static void report(String name, String entity, Object root) {
+        long bytes = GraphLayout.parseInstance(root).totalSize();
+        System.out.printf("%-30s %,12d bytes %8.1f bytes per %s%n", name, bytes, (double) bytes / SIZE, entity);
+    }
+
+    /**
+     * Layout of the Car entity with boxed fields.
+     */
+    private static class BoxedCar {
+        private final Long id;
+        private final Integer seats;
+        private final Integer availableSeats;
+
+        BoxedCar(Long id, Integer seats, Integer availableSeats) {
+            this.id = id;
+            this.seats = seats;
+            this.availableSeats = availableSeats;
+        }
+    }
+
+    /**
+     * Layout of the Journey entity with boxed fields.
+     */
+    private static class BoxedJourney {
+        private final Long id;
+        private final Integer people;
+        private final Long carId;
+
+        BoxedJourney(Long id, Integer people, Long carId) {
+            this.id = id;
+            this.people = people;
+            this.carId = carId;
+        }
+    }
+}
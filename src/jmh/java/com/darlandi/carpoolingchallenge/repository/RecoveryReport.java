@@ -0,0 +1,97 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.strategy.BestFitStrategy;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Time to recover the in-memory state from the dispatch journal after a restart: a fleet
+ * of 10^5 cars, then journeys registered, assigned or queued and dropped off until the
+ * journal has 10^6 events after the snapshot of the fleet, synced in groups of 64 events.
+ * The recovery is repeated, as the first one also loads and compiles the code.
+ * mvn -Pbenchmarks test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.darlandi.carpoolingchallenge.repository.RecoveryReport
+ */
+public class RecoveryReport {
+    private static final int CARS = 100_000;
+    private static final int EVENTS = 1_000_000;
+    private static final int GROUP = 64;
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            write(directory);
+            System.out.printf("Journal: %,d bytes, snapshot: %,d bytes%n",
+                    Files.size(directory.resolve("journal-1.bin")), Files.size(directory.resolve("snapshot.bin")));
+            for (int round = 1; round <= ROUNDS; round++) {
+                long start = System.nanoTime();
+                FileDispatchJournal journal = new FileDispatchJournal(new InMemoryCarStore(),
+                        new InMemoryJourneyStore(), new InMemoryWaitingQueue(), directory.toString(), false, Long.MAX_VALUE);
+                journal.recover();
+                System.out.printf("Round %d: recovered in %.1f ms%n", round, (System.nanoTime() - start) / 1e6);
+                journal.close();
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void write(Path directory) throws IOException {
+        InMemoryCarStore carStore = new InMemoryCarStore();
+        InMemoryJourneyStore journeyStore = new InMemoryJourneyStore();
+        InMemoryWaitingQueue waitingQueue = new InMemoryWaitingQueue();
+        FileDispatchJournal journal = new FileDispatchJournal(carStore, journeyStore, waitingQueue,
+                directory.toString(), false, Long.MAX_VALUE);
+        journal.recover();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("journal", journal));
+        CarPoolingRepository carPoolingRepository =
+                new CarPoolingRepository(carStore, beanFactory.getBeanProvider(DispatchJournal.class));
+        JourneyRepository journeyRepository =
+                new JourneyRepository(journeyStore, waitingQueue, beanFactory.getBeanProvider(DispatchJournal.class));
+        StoreDispatchOperations dispatchOperations = new StoreDispatchOperations(carPoolingRepository, journeyRepository,
+                new BestFitStrategy());
+
+        FleetLoader loader = carPoolingRepository.newLoader(1000);
+        for (long id = 1; id <= CARS; id++) {
+            loader.add(new Car(id, 4 + (int) (id % 3)));
+        }
+        loader.commit();
+        // Each journey is registered, then assigned or queued: 2 events, and 1 more when
+        // the oldest one is dropped off, to keep about 2 * 10^5 journeys alive.
+        long nextId = 1;
+        long dropId = 1;
+        int events = 0;
+        int synced = 0;
+        while (events < EVENTS) {
+            Journey journey = new Journey(nextId, 1 + (int) (nextId % 6));
+            nextId++;
+            journeyRepository.create(journey);
+            if (dispatchOperations.assign(journey).isEmpty()) {
+                journeyRepository.addToWaitingList(journey.getId(), journey.getPeople());
+            }
+            events += 2;
+            if (nextId > 200_000) {
+                dispatchOperations.dropOff(dropId++);
+                events++;
+            }
+            if (events - synced >= GROUP) {
+                journal.sync();
+                synced = events;
+            }
+        }
+        journal.close();
+        System.out.printf("Written: %,d cars, %,d journeys, %,d waiting%n",
+                carStore.totalSize(), journeyStore.size(), waitingQueue.size());
+    }
+}
@@ -0,0 +1,81 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode the cars and journeys with the binary format of the Redis stores,
+ * compared with the JDK serialization used before. An ID and its car take 5 bytes
+ * instead of more than 100 (see RedisCodecTest).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RedisCodecBenchmark {
+    private final JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer();
+    private Car car;
+    private Journey journey;
+    private byte[] binaryCar;
+    private byte[] binaryJourney;
+    private byte[] jdkCar;
+    private byte[] jdkJourney;
+
+    @Setup
+    public void setUp() {
+        car = new Car(100_000L, 6);
+        car.setAvailableSeats(2);
+        journey = new Journey(100_000L, 4);
+        journey.setCarId(100_000L);
+        binaryCar = RedisCodec.encodeCar(car);
+        binaryJourney = RedisCodec.encodeJourney(journey);
+        jdkCar = jdk.serialize(car);
+        jdkJourney = jdk.serialize(journey);
+    }
+
+    @Benchmark
+    public byte[] encodeCarBinary() {
+        return RedisCodec.encodeCar(car);
+    }
+
+    @Benchmark
+    public Car decodeCarBinary() {
+        return RedisCodec.decodeCar(100_000L, binaryCar);
+    }
+
+    @Benchmark
+    public byte[] encodeCarJdk() {
+        return jdk.serialize(car);
+    }
+
+    @Benchmark
+    public Object decodeCarJdk() {
+        return jdk.deserialize(jdkCar);
+    }
+
+    @Benchmark
+    public byte[] encodeJourneyBinary() {
+        return RedisCodec.encodeJourney(journey);
+    }
+
+    @Benchmark
+    public Journey decodeJourneyBinary() {
+        return RedisCodec.decodeJourney(100_000L, binaryJourney);
+    }
+
+    @Benchmark
+    public byte[] encodeJourneyJdk() {
+        return jdk.serialize(journey);
+    }
+
+    @Benchmark
+    public Object decodeJourneyJdk() {
+        return jdk.deserialize(jdkJourney);
+    }
+}
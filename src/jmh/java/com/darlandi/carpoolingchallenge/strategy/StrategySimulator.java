@@ -0,0 +1,210 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.repository.CarPoolingRepository;
+import com.darlandi.carpoolingchallenge.repository.DispatchJournal;
+import com.darlandi.carpoolingchallenge.repository.FleetLoader;
+import com.darlandi.carpoolingchallenge.repository.InMemoryCarStore;
+import com.darlandi.carpoolingchallenge.repository.InMemoryJourneyStore;
+import com.darlandi.carpoolingchallenge.repository.InMemoryWaitingQueue;
+import com.darlandi.carpoolingchallenge.repository.JourneyRepository;
+import com.darlandi.carpoolingchallenge.repository.StoreDispatchOperations;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Replay a trace of journeys against every assignment strategy and report the seat
+ * utilisation (time-weighted, over the seats of the fleet), the mean wait of the groups
+ * that got a car and the throughput (journeys finished per hour).
+ * The trace is a CSV file with one journey per line (arrivalMillis,journeyId,people,rideMillis)
+ * given by the "trace" system property, target/trace.csv by default. If the file does not
+ * exist, a synthetic trace is generated with a fixed seed and recorded there: Poisson arrivals for 24 hours, groups of 1 to 6 people and rides of 20 minutes on
+ * average, about 95% of the seats of a fleet of 100 cars of 4, 5 and 6 seats.
+ * The in-memory stores are the real ones. Every journey is assigned when it arrives or
+ * queued, and after every drop off the waiting journeys are reassigned like
+ * JourneyService.reassignWaitingJourneys does.
+ * mvn -Pbenchmarks test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.darlandi.carpoolingchallenge.strategy.StrategySimulator -Dtrace=target/trace.csv
+ */
+public class StrategySimulator {
+    private static final int CARS = 100;
+    private static final long DURATION = 24 * 3_600_000L;
+    private static final double ARRIVALS_PER_MINUTE = 6.8;
+    private static final long MEAN_RIDE = 20 * 60_000L;
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(System.getProperty("trace", "target/trace.csv"));
+        List<long[]> trace;
+        if (Files.exists(path)) {
+            trace = load(path);
+        } else {
+            trace = generate();
+            record(path, trace);
+        }
+        System.out.printf("Trace %s: %,d journeys, %,d cars with %,d seats%n", path, trace.size(), CARS, fleetSeats());
+        Map<String, SeatAssignmentStrategy> strategies = new LinkedHashMap<>();
+        strategies.put("best-fit", new BestFitStrategy());
+        strategies.put("worst-fit", new WorstFitStrategy());
+        strategies.put("most-occupied", new MostOccupiedStrategy());
+        strategies.put("lookahead", new LookaheadStrategy());
+        System.out.printf("%-14s %12s %14s %16s %10s%n", "strategy", "utilisation", "mean wait (s)", "finished/hour", "waiting");
+        for (Map.Entry<String, SeatAssignmentStrategy> strategy : strategies.entrySet()) {
+            new Simulation(strategy.getValue()).run(strategy.getKey(), trace);
+        }
+    }
+
+    private static List<long[]> generate() {
+        Random random = new Random(SEED);
+        List<long[]> trace = new ArrayList<>();
+        double time = 0;
+        long journeyId = 1;
+        while (true) {
+            time += -Math.log(1 - random.nextDouble()) * 60_000 / ARRIVALS_PER_MINUTE;
+            if (time >= DURATION) {
+                return trace;
+            }
+            long ride = 60_000 + (long) (-Math.log(1 - random.nextDouble()) * (MEAN_RIDE - 60_000));
+            trace.add(new long[]{(long) time, journeyId++, 1 + random.nextInt(6), ride});
+        }
+    }
+
+    private static void record(Path path, List<long[]> trace) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write("arrivalMillis,journeyId,people,rideMillis\n");
+            for (long[] journey : trace) {
+                writer.write(journey[0] + "," + journey[1] + "," + journey[2] + "," + journey[3] + "\n");
+            }
+        }
+    }
+
+    private static List<long[]> load(Path path) throws IOException {
+        List<long[]> trace = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            if (line.isBlank() || line.startsWith("arrivalMillis")) {
+                continue;
+            }
+            String[] fields = line.split(",");
+            trace.add(new long[]{Long.parseLong(fields[0].trim()), Long.parseLong(fields[1].trim()),
+                    Long.parseLong(fields[2].trim()), Long.parseLong(fields[3].trim())});
+        }
+        trace.sort((a, b) -> Long.compare(a[0], b[0]));
+        return trace;
+    }
+
+    private static int seats(long carId) {
+        return 4 + (int) (carId % 3);
+    }
+
+    private static long fleetSeats() {
+        long seats = 0;
+        for (long id = 1; id <= CARS; id++) {
+            seats += seats(id);
+        }
+        return seats;
+    }
+
+    /**
+     * One replay of the trace with fresh stores.
+     */
+    private static class Simulation {
+        private final CarPoolingRepository carPoolingRepository;
+        private final JourneyRepository journeyRepository;
+        private final StoreDispatchOperations dispatchOperations;
+        private final PriorityQueue<long[]> dropOffs = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+        private final Map<Long, long[]> journeys = new HashMap<>();
+        private long now;
+        private long occupiedSeats;
+        private double seatMillis;
+        private long served;
+        private double waitMillis;
+        private long finished;
+
+        Simulation(SeatAssignmentStrategy strategy) {
+            ObjectProvider<DispatchJournal> journal = new StaticListableBeanFactory().getBeanProvider(DispatchJournal.class);
+            carPoolingRepository = new CarPoolingRepository(new InMemoryCarStore(), journal);
+            journeyRepository = new JourneyRepository(new InMemoryJourneyStore(), new InMemoryWaitingQueue(), journal);
+            dispatchOperations = new StoreDispatchOperations(carPoolingRepository, journeyRepository, strategy);
+            FleetLoader loader = carPoolingRepository.newLoader(1000);
+            for (long id = 1; id <= CARS; id++) {
+                loader.add(new Car(id, seats(id)));
+            }
+            loader.commit();
+        }
+
+        void run(String name, List<long[]> trace) {
+            long end = trace.isEmpty() ? 0 : trace.get(trace.size() - 1)[0];
+            for (long[] arrival : trace) {
+                dropOffUntil(arrival[0]);
+                advance(arrival[0]);
+                journeys.put(arrival[1], arrival);
+                Journey journey = new Journey(arrival[1], (int) arrival[2]);
+                journeyRepository.create(journey);
+                if (!assign(journey)) {
+                    journeyRepository.addToWaitingList(journey.getId(), journey.getPeople());
+                }
+            }
+            System.out.printf("%-14s %11.1f%% %14.1f %16.1f %10d%n", name,
+                    100 * seatMillis / ((double) fleetSeats() * Math.max(1, end)),
+                    served == 0 ? 0 : waitMillis / served / 1000,
+                    finished * 3_600_000.0 / Math.max(1, end),
+                    journeyRepository.sizeWaitingList());
+        }
+
+        private void dropOffUntil(long time) {
+            while (!dropOffs.isEmpty() && dropOffs.peek()[0] <= time) {
+                long[] dropOff = dropOffs.poll();
+                advance(dropOff[0]);
+                dispatchOperations.dropOff(dropOff[1]);
+                occupiedSeats -= dropOff[2];
+                finished++;
+                reassignWaitingJourneys();
+            }
+        }
+
+        private void reassignWaitingJourneys() {
+            while (true) {
+                Optional<Journey> journey =
+                        journeyRepository.getFirstWaitingFitting(carPoolingRepository.maxSeatsAvailable());
+                if (journey.isEmpty() || !assign(journey.get())) {
+                    return;
+                }
+            }
+        }
+
+        private boolean assign(Journey journey) {
+            if (dispatchOperations.assign(journey).isEmpty()) {
+                return false;
+            }
+            long[] arrival = journeys.remove(journey.getId());
+            occupiedSeats += journey.getPeople();
+            served++;
+            waitMillis += now - arrival[0];
+            dropOffs.add(new long[]{now + arrival[3], journey.getId(), journey.getPeople()});
+            return true;
+        }
+
+        private void advance(long time) {
+            seatMillis += (double) occupiedSeats * (time - now);
+            now = time;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.darlandi.carpoolingchallenge.loadgen;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Groups registered by the generator and not dropped off yet, to choose the groups to
+ * drop off and locate at random.
+ */
+final class ActiveGroups {
+    private final List<Long> journeyIds = new ArrayList<>();
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private final Map<Long, Integer> people = new HashMap<>();
+
+    synchronized void add(long journeyId, int groupPeople) {
+        positions.put(journeyId, journeyIds.size());
+        journeyIds.add(journeyId);
+        people.put(journeyId, groupPeople);
+    }
+
+    /**
+     * Remove a random group, which is not chosen again.
+     *
+     * @return ID of the group, or -1 if there is none.
+     */
+    synchronized long removeAny(Random random) {
+        if (journeyIds.isEmpty()) {
+            return -1;
+        }
+        long journeyId = journeyIds.get(random.nextInt(journeyIds.size()));
+        int position = positions.remove(journeyId);
+        long last = journeyIds.remove(journeyIds.size() - 1);
+        if (last != journeyId) {
+            journeyIds.set(position, last);
+            positions.put(last, position);
+        }
+        people.remove(journeyId);
+        return journeyId;
+    }
+
+    /**
+     * @return ID of a random group, or -1 if there is none.
+     */
+    synchronized long any(Random random) {
+        return journeyIds.isEmpty() ? -1 : journeyIds.get(random.nextInt(journeyIds.size()));
+    }
+
+    synchronized Map<Long, Integer> snapshot() {
+        return new HashMap<>(people);
+    }
+}
@@ -0,0 +1,80 @@
+package com.darlandi.carpoolingchallenge.loadgen;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Client of the REST contract of the service.
+ */
+final class CarPoolingClient {
+    private static final Pattern CAR = Pattern.compile("\"id\"\\s*:\\s*(-?\\d+).*\"seats\"\\s*:\\s*(\\d+)");
+    private final HttpClient httpClient;
+    private final String baseUrl;
+
+    CarPoolingClient(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    int status() throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/status")).GET()).statusCode();
+    }
+
+    int loadCars(Map<Long, Integer> fleet) throws IOException, InterruptedException {
+        StringBuilder json = new StringBuilder("[");
+        fleet.forEach((id, seats) -> json.append(json.length() > 1 ? "," : "")
+                .append("{\"id\":").append(id).append(",\"seats\":").append(seats).append('}'));
+        json.append(']');
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/cars"))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(json.toString()))).statusCode();
+    }
+
+    int journey(long journeyId, int people) throws IOException, InterruptedException {
+        return send(HttpRequest.newBuilder(URI.create(baseUrl + "/journey"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"id\":" + journeyId + ",\"people\":" + people + "}")))
+                .statusCode();
+    }
+
+    int dropOff(long journeyId) throws IOException, InterruptedException {
+        return send(form("/dropoff", journeyId)).statusCode();
+    }
+
+    /**
+     * Locate a journey.
+     *
+     * @return The status and, with 200 OK, the ID and seats of the car.
+     */
+    long[] locate(long journeyId) throws IOException, InterruptedException {
+        HttpResponse<String> response = send(form("/locate", journeyId));
+        if (response.statusCode() == 200) {
+            Matcher car = CAR.matcher(response.body());
+            if (car.find()) {
+                return new long[]{200, Long.parseLong(car.group(1)), Long.parseLong(car.group(2))};
+            }
+        }
+        return new long[]{response.statusCode()};
+    }
+
+    private HttpRequest.Builder form(String path, long journeyId) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header("Accept", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("ID=" + journeyId));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return httpClient.send(request.timeout(Duration.ofSeconds(30)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+}
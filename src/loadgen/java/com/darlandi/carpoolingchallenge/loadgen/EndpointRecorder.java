@@ -0,0 +1,56 @@
+package com.darlandi.carpoolingchallenge.loadgen;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and response status of an endpoint.
+ * The service time is measured from the moment the request is sent. The corrected
+ * latency is measured from the moment the request should have been sent by the
+ * schedule of the target rate, so the requests delayed by a slow response are not
+ * hidden (coordinated omission).
+ */
+final class EndpointRecorder {
+    private static final long HIGHEST_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final String name;
+    private final Recorder serviceTime = new Recorder(HIGHEST_NANOS, 3);
+    private final Recorder corrected = new Recorder(HIGHEST_NANOS, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    EndpointRecorder(String name) {
+        this.name = name;
+    }
+
+    void record(long intendedNanos, long sentNanos, long receivedNanos, int status) {
+        serviceTime.recordValue(Math.min(receivedNanos - sentNanos, HIGHEST_NANOS));
+        corrected.recordValue(Math.min(receivedNanos - intendedNanos, HIGHEST_NANOS));
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    void print(PrintStream out) {
+        Histogram service = serviceTime.getIntervalHistogram();
+        Histogram correctedHistogram = corrected.getIntervalHistogram();
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, count) -> statusCounts.put(status, count.sum()));
+        out.println(name + ": " + service.getTotalCount() + " requests, status " + statusCounts);
+        out.println(line("  service time (ms)", service));
+        out.println(line("  corrected    (ms)", correctedHistogram));
+    }
+
+    private static String line(String title, Histogram histogram) {
+        StringBuilder line = new StringBuilder(title);
+        for (double percentile : PERCENTILES) {
+            line.append(String.format("  p%-5s %8.3f", percentile, histogram.getValueAtPercentile(percentile) / 1e6));
+        }
+        return line.append(String.format("  max %8.3f", histogram.getMaxValue() / 1e6)).toString();
+    }
+}
@@ -0,0 +1,66 @@
+package com.darlandi.carpoolingchallenge.loadgen;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Check the state of the service once the load has stopped, through the REST contract:
+ * every active group is travelling or waiting, no car is over capacity, no waiting group
+ * fits in the free seats of a car, and the dropped off groups are not found.
+ */
+final class InvariantChecker {
+    private final CarPoolingClient client;
+    private final Map<Long, Integer> fleet;
+
+    InvariantChecker(CarPoolingClient client, Map<Long, Integer> fleet) {
+        this.client = client;
+        this.fleet = fleet;
+    }
+
+    List<String> check(Map<Long, Integer> activeGroups, Collection<Long> droppedGroups) throws IOException, InterruptedException {
+        List<String> violations = new ArrayList<>();
+        Map<Long, Integer> occupiedSeats = new HashMap<>();
+        Map<Long, Integer> waitingGroups = new HashMap<>();
+        for (Map.Entry<Long, Integer> group : activeGroups.entrySet()) {
+            long[] located = client.locate(group.getKey());
+            if (located[0] == 200) {
+                Integer seats = fleet.get(located[1]);
+                if (seats == null || seats != located[2]) {
+                    violations.add("Group " + group.getKey() + " is travelling in an unknown car " + located[1] + ".");
+                }
+                occupiedSeats.merge(located[1], group.getValue(), Integer::sum);
+            } else if (located[0] == 204) {
+                waitingGroups.put(group.getKey(), group.getValue());
+            } else {
+                violations.add("Group " + group.getKey() + " is neither travelling nor waiting (status " + located[0] + ").");
+            }
+        }
+        int maxFreeSeats = 0;
+        for (Map.Entry<Long, Integer> car : fleet.entrySet()) {
+            int occupied = occupiedSeats.getOrDefault(car.getKey(), 0);
+            if (occupied > car.getValue()) {
+                violations.add("Car " + car.getKey() + " carries " + occupied + " people with " + car.getValue() + " seats.");
+            }
+            maxFreeSeats = Math.max(maxFreeSeats, car.getValue() - occupied);
+        }
+        for (Map.Entry<Long, Integer> group : waitingGroups.entrySet()) {
+            if (group.getValue() <= maxFreeSeats) {
+                violations.add("Group " + group.getKey() + " of " + group.getValue() + " people is waiting but a car has "
+                        + maxFreeSeats + " free seats.");
+            }
+        }
+        for (long journeyId : droppedGroups) {
+            long status = client.locate(journeyId)[0];
+            if (status != 404) {
+                violations.add("Group " + journeyId + " was dropped off but it is still found (status " + status + ").");
+            }
+        }
+        System.out.println("Invariants checked: " + (activeGroups.size() - waitingGroups.size()) + " groups travelling, "
+                + waitingGroups.size() + " waiting, " + droppedGroups.size() + " dropped off groups sampled.");
+        return violations;
+    }
+}
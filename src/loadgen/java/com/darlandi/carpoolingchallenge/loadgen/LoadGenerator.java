@@ -0,0 +1,193 @@
+package com.darlandi.carpoolingchallenge.loadgen;
+
+import com.darlandi.carpoolingchallenge.utils.Constants;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Closed-loop load generator for a running service. It loads a seeded fleet with
+ * PUT /cars, and then a fixed number of clients send a mix of arrivals, drop-offs and
+ * locates following the schedule of the target rate. Every client waits for its
+ * response before the next request, and the latency of a late request is also measured
+ * from its scheduled time. When the load stops, the invariants of the service are checked.
+ * The clients are virtual threads when the JVM supports them.
+ */
+public final class LoadGenerator {
+    private static final int DROPPED_SAMPLE = 1000;
+
+    private final LoadOptions options;
+    private final CarPoolingClient client;
+    private final ActiveGroups activeGroups = new ActiveGroups();
+    private final Set<Long> droppedGroups = ConcurrentHashMap.newKeySet();
+    private final AtomicLong nextJourneyId = new AtomicLong();
+    private final AtomicLong nextOperation = new AtomicLong();
+    private final EndpointRecorder arrivals = new EndpointRecorder("POST /journey");
+    private final EndpointRecorder dropOffs = new EndpointRecorder("POST /dropoff");
+    private final EndpointRecorder locates = new EndpointRecorder("POST /locate");
+
+    private LoadGenerator(LoadOptions options) {
+        this.options = options;
+        this.client = new CarPoolingClient(options.baseUrl);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options = LoadOptions.parse(args);
+        System.out.println("Load: " + options);
+        System.exit(new LoadGenerator(options).run() ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        awaitService();
+        Map<Long, Integer> fleet = fleet();
+        long loadStart = System.nanoTime();
+        int loadStatus = client.loadCars(fleet);
+        System.out.printf("PUT /cars: %d cars, status %d, %.1f ms%n", fleet.size(), loadStatus,
+                (System.nanoTime() - loadStart) / 1e6);
+
+        long operations = (long) options.rate * options.durationSeconds;
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long start = System.nanoTime();
+        ExecutorService executor = clientExecutor();
+        for (int i = 0; i < options.clients; i++) {
+            executor.execute(() -> sendUntil(operations, start, intervalNanos));
+        }
+        executor.shutdown();
+        executor.awaitTermination(options.durationSeconds + 300L, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d requests in %.1f s (%.0f requests/s, target %d)%n", operations, elapsedSeconds,
+                operations / elapsedSeconds, options.rate);
+        arrivals.print(System.out);
+        dropOffs.print(System.out);
+        locates.print(System.out);
+
+        List<String> violations = new InvariantChecker(client, fleet).check(activeGroups.snapshot(), droppedGroups);
+        violations.forEach(violation -> System.out.println("VIOLATION: " + violation));
+        System.out.println(violations.isEmpty() ? "All invariants hold." : violations.size() + " invariants violated.");
+        return violations.isEmpty();
+    }
+
+    /**
+     * Send the next scheduled operations until all of them have been sent.
+     */
+    private void sendUntil(long operations, long start, long intervalNanos) {
+        int totalWeight = options.arrivalWeight + options.dropOffWeight + options.locateWeight;
+        for (long operation = nextOperation.getAndIncrement(); operation < operations;
+             operation = nextOperation.getAndIncrement()) {
+            long intended = start + operation * intervalNanos;
+            long delay = intended - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Random random = new Random(options.seed * 31 + operation);
+            int choice = random.nextInt(totalWeight);
+            if (choice < options.arrivalWeight) {
+                arrival(intended, random);
+            } else if (choice < options.arrivalWeight + options.dropOffWeight) {
+                dropOff(intended, random);
+            } else {
+                locate(intended, random);
+            }
+        }
+    }
+
+    private void arrival(long intended, Random random) {
+        long journeyId = nextJourneyId.incrementAndGet();
+        int people = Constants.MIN_PEOPLE + random.nextInt(Constants.MAX_PEOPLE - Constants.MIN_PEOPLE + 1);
+        long sent = System.nanoTime();
+        int status = call(() -> client.journey(journeyId, people));
+        arrivals.record(intended, sent, System.nanoTime(), status);
+        if (status == 200 || status == 202) {
+            activeGroups.add(journeyId, people);
+        }
+    }
+
+    private void dropOff(long intended, Random random) {
+        long journeyId = activeGroups.removeAny(random);
+        if (journeyId < 0) {
+            arrival(intended, random);
+            return;
+        }
+        long sent = System.nanoTime();
+        int status = call(() -> client.dropOff(journeyId));
+        dropOffs.record(intended, sent, System.nanoTime(), status);
+        // A failed request may not have reached the service, so the group is only checked once it is dropped off.
+        if (status == 200 && droppedGroups.size() < DROPPED_SAMPLE) {
+            droppedGroups.add(journeyId);
+        }
+    }
+
+    private void locate(long intended, Random random) {
+        long journeyId = activeGroups.any(random);
+        if (journeyId < 0) {
+            arrival(intended, random);
+            return;
+        }
+        long sent = System.nanoTime();
+        int status = call(() -> (int) client.locate(journeyId)[0]);
+        locates.record(intended, sent, System.nanoTime(), status);
+    }
+
+    private Map<Long, Integer> fleet() {
+        Random random = new Random(options.seed);
+        Map<Long, Integer> fleet = new LinkedHashMap<>();
+        for (long carId = 1; carId <= options.cars; carId++) {
+            fleet.put(carId, Constants.MIN_SEATS + random.nextInt(Constants.MAX_SEATS - Constants.MIN_SEATS + 1));
+        }
+        return fleet;
+    }
+
+    private void awaitService() throws InterruptedException {
+        for (int attempt = 0; attempt < 60; attempt++) {
+            try {
+                if (client.status() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not started yet.
+            }
+            Thread.sleep(1000);
+        }
+        throw new IllegalStateException("The service at " + options.baseUrl + " is not available.");
+    }
+
+    /**
+     * One virtual thread per client when the JVM supports them (Java 21+), platform threads otherwise.
+     */
+    private ExecutorService clientExecutor() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            System.out.println("Clients: " + options.clients + " virtual threads");
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            System.out.println("Clients: " + options.clients + " platform threads");
+            return Executors.newFixedThreadPool(options.clients);
+        }
+    }
+
+    private static int call(Request request) {
+        try {
+            return request.send();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Request {
+        int send() throws IOException, InterruptedException;
+    }
+}
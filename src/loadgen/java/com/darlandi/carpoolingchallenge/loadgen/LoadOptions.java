@@ -0,0 +1,49 @@
+package com.darlandi.carpoolingchallenge.loadgen;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Options of the load generator, given as "--name=value" arguments.
+ */
+final class LoadOptions {
+    final String baseUrl;
+    final int cars;
+    final long seed;
+    final int rate;
+    final int durationSeconds;
+    final int clients;
+    final int arrivalWeight;
+    final int dropOffWeight;
+    final int locateWeight;
+
+    private LoadOptions(Map<String, String> options) {
+        baseUrl = options.getOrDefault("url", "http://localhost:9091");
+        cars = Integer.parseInt(options.getOrDefault("cars", "1000"));
+        seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        rate = Integer.parseInt(options.getOrDefault("rate", "1000"));
+        durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        clients = Integer.parseInt(options.getOrDefault("clients", "64"));
+        arrivalWeight = Integer.parseInt(options.getOrDefault("arrivals", "40"));
+        dropOffWeight = Integer.parseInt(options.getOrDefault("dropoffs", "30"));
+        locateWeight = Integer.parseInt(options.getOrDefault("locates", "30"));
+    }
+
+    static LoadOptions parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unknown argument " + arg + ", expected --name=value");
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        return new LoadOptions(options);
+    }
+
+    @Override
+    public String toString() {
+        return "url=" + baseUrl + " cars=" + cars + " seed=" + seed + " rate=" + rate + "/s duration=" + durationSeconds
+                + "s clients=" + clients + " mix=" + arrivalWeight + "/" + dropOffWeight + "/" + locateWeight
+                + " (arrivals/dropoffs/locates)";
+    }
+}
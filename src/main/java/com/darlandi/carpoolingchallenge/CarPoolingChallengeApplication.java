@@ -11,9 +11,9 @@ import redis.embedded.RedisServer;
 public class CarPoolingChallengeApplication {
     private static final Logger logger = LoggerFactory.getLogger(CarPoolingChallengeApplication.class);
     public static void main(String[] args) {
-
-        SpringApplication.run(CarPoolingChallengeApplication.class, args);
+        // Redis must be up before the context, the stores load their scripts at startup.
         redisServer();
+        SpringApplication.run(CarPoolingChallengeApplication.class, args);
     }
 
     private static void redisServer() {
@@ -21,6 +21,8 @@ public class CarPoolingChallengeApplication {
         RedisProperties redisProperties = new RedisProperties(6370, "localhost");
         redisServer = new RedisServer(redisProperties.getRedisPort());
         redisServer.start();
+        // Otherwise the Redis process outlives the JVM and the next start can't bind its port.
+        Runtime.getRuntime().addShutdownHook(new Thread(redisServer::stop, "redis-server-stop"));
         logger.info("Redis server started");
     }
 }
@@ -1,52 +1,66 @@
 package com.darlandi.carpoolingchallenge.controller;
 
+import com.darlandi.carpoolingchallenge.entities.BatchResultDataTransferObject;
 import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
 import com.darlandi.carpoolingchallenge.entities.JourneyDataTransferObject;
 import com.darlandi.carpoolingchallenge.exceptions.BadInputException;
-import com.darlandi.carpoolingchallenge.exceptions.NoCarAvailableException;
-import com.darlandi.carpoolingchallenge.exceptions.NoCarFoundException;
-import com.darlandi.carpoolingchallenge.exceptions.NoJourneyFoundException;
-import com.darlandi.carpoolingchallenge.repository.CarPoolingRepository;
-import com.darlandi.carpoolingchallenge.repository.JourneyRepository;
+import com.darlandi.carpoolingchallenge.exceptions.UploadInProgressException;
 import com.darlandi.carpoolingchallenge.services.CarPoolingService;
-import com.darlandi.carpoolingchallenge.services.JourneyService;
+import com.darlandi.carpoolingchallenge.services.DispatchLoop;
+import com.darlandi.carpoolingchallenge.services.FleetUpload;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Rest Controller
+ * The requests are parsed in the request threads, and then they are run by the
+ * DispatchLoop, so the state is only updated by one thread and the request threads
+ * are released until the response is ready.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class CarPoolingController {
     private static final Logger logger = LoggerFactory.getLogger(CarPoolingController.class);
     @Autowired
     private CarPoolingService carPoolingService;
 
     @Autowired
-    private CarPoolingRepository carPoolingRepository;
+    private CarPoolingRequests requests;
 
     @Autowired
-    private JourneyRepository journeyRepository;
+    private DispatchLoop dispatchLoop;
 
     @Autowired
-    private JourneyService journeyService;
-
+    private ApplicationAvailability availability;
 
     /**
      * Indicate the service has started up correctly and is ready to accept requests.
+     * The server only listens after the startup warm-up, and it is ready when the
+     * application accepts traffic.
      *
-     * @return 200 OK When the service is ready to receive requests.
+     * @return 200 OK When the service is ready to receive requests, 503 Service Unavailable otherwise.
      */
     @GetMapping("/status")
     public ResponseEntity<String> getStatus() {
+        if (availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
         return ResponseEntity.ok().build();
     }
 
@@ -54,26 +68,38 @@ public class CarPoolingController {
      * Load the list of available cars in the service and remove all previous data
      * (reset the application state). This method may be called more than once during
      * the life cycle of the service.
+     * The body is read as a stream and the cars are written in batches while it is
+     * received; only the replacement of the fleet is run by the DispatchLoop.
      *
-     * @param carList JSON
+     * @param carList     JSON array, or NDJSON with a car per line
+     * @param contentType Content type of the body, the cars are only read as NDJSON with application/x-ndjson
      * @return 200 OK When the list is registered correctly.
      * <p>
      * 400 Bad Request When there is a failure in the request format, expected
      * headers, or the payload can't be unmarshalled.
+     * <p>
+     * 409 Conflict When another list is still being loaded after carpooling.load.permit-timeout.
      */
-    @PutMapping("/cars")
-    public ResponseEntity<String> loadAvailableCars(@RequestBody List<CarDataTransferObject> carList) {
-        carPoolingRepository.deleteAll();
-        journeyRepository.deleteAll();
-        logger.info("All repositories cleared.");
+    @PutMapping(value = "/cars", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public CompletableFuture<ResponseEntity<String>> loadAvailableCars(
+            InputStream carList, @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType) {
+        FleetUpload upload;
         try {
-            carPoolingService.register(carList);
-        } catch (BadInputException e) {
-            logger.error(e + " Error registering the car list, the input is not correct or an ID is repeated.");
-            return ResponseEntity.badRequest().build();
+            upload = carPoolingService.upload(carList, MediaType.APPLICATION_NDJSON.isCompatibleWith(contentType));
+        } catch (IOException e) {
+            logger.error("Error registering the car list, the payload can't be unmarshalled.");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+        } catch (UploadInProgressException e) {
+            logger.error("Error registering the car list, another list is still being loaded.");
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT).build());
         }
-        logger.info("All cars correctly saved in DB.");
-        return ResponseEntity.ok().build();
+        CompletableFuture<ResponseEntity<String>> response = dispatchLoop.submit(() -> requests.registerCars(upload));
+        response.whenComplete((entity, e) -> {
+            if (e instanceof RejectedExecutionException) {
+                carPoolingService.discard(upload);
+            }
+        });
+        return response;
     }
 
     /**
@@ -86,19 +112,42 @@ public class CarPoolingController {
      * payload can't be unmarshalled.
      */
     @PostMapping("/journey")
-    public ResponseEntity<String> peopleJourney(@RequestBody JourneyDataTransferObject journeyDTO) {
-        try {
-            journeyService.register(journeyDTO);
-        } catch (BadInputException e) {
-            logger.error(e + " Error registering the journey ID " + journeyDTO.getId() + ", the input is not correct or it has already been saved.");
-            return ResponseEntity.badRequest().build();
-        } catch (NoCarAvailableException e) {
-            journeyRepository.addToWaitingList(journeyDTO.getId());
-            logger.error(e + " There is no car available for the journey ID " + journeyDTO.getId());
-            logger.info(e + " Journey ID " + journeyDTO.getId() + " added to waiting list.");
-        }
-        logger.info("Journey ID " + journeyDTO.getId() +" correctly saved in DB.");
-        return ResponseEntity.ok().build();
+    public CompletableFuture<ResponseEntity<String>> peopleJourney(@RequestBody JourneyDataTransferObject journeyDTO) {
+        return dispatchLoop.submit(() -> requests.registerJourney(journeyDTO));
+    }
+
+    /**
+     * Groups of people request to perform journeys, in the order of the list. The batch
+     * is run as one step of the DispatchLoop.
+     *
+     * @param journeyDTOs JSON array
+     * @return 200 OK With the status of every journey, in the order of the list: 200 when
+     * the group is registered correctly, 400 when the group is not correct or it has
+     * already been registered.
+     * <p>
+     * 400 Bad Request When the payload can't be unmarshalled.
+     */
+    @PostMapping("/journeys:batch")
+    public CompletableFuture<ResponseEntity<List<BatchResultDataTransferObject>>> peopleJourneys(
+            @RequestBody List<JourneyDataTransferObject> journeyDTOs) {
+        return dispatchLoop.submit(() -> requests.registerJourneys(journeyDTOs));
+    }
+
+    /**
+     * Groups of people request to be dropped off, in the order of the list. The batch is
+     * run as one step of the DispatchLoop, and the free seats are reassigned at the end.
+     *
+     * @param journeyIDs JSON array of IDs
+     * @return 200 OK With the status of every group, in the order of the list: 200 when
+     * the group is unregistered correctly, 404 when it is not to be found and 400 when
+     * the ID is missing.
+     * <p>
+     * 400 Bad Request When the payload can't be unmarshalled.
+     */
+    @PostMapping("/dropoffs:batch")
+    public CompletableFuture<ResponseEntity<List<BatchResultDataTransferObject>>> dropoffs(
+            @RequestBody List<Long> journeyIDs) {
+        return dispatchLoop.submit(() -> requests.dropOffJourneys(journeyIDs));
     }
 
     /**
@@ -113,25 +162,15 @@ public class CarPoolingController {
      * payload can't be unmarshalled.
      */
     @PostMapping(value = "/dropoff", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
-    public ResponseEntity<String> dropoff(@RequestBody MultiValueMap<String, String> journeyID) {
-        Long id = null;
-
+    public CompletableFuture<ResponseEntity<String>> dropoff(@RequestBody MultiValueMap<String, String> journeyID) {
+        long id;
         try {
             id = carPoolingService.mapToId(journeyID);
-            journeyService.dropOffGroup(id);
         } catch (BadInputException e) {
-            logger.error(e + " Error unregistering the journey ID " + id + ", the input is not correct or it has been already deleted.");
-            return ResponseEntity.badRequest().build();
-        } catch (NoJourneyFoundException e) {
-            logger.error(e + " Error unregistering the journey ID " + id + ", no journey has been found in DB.");
-            return ResponseEntity.notFound().build();
-        } catch (NoCarFoundException e) {
-            logger.error(e + " Error unregistering the journey ID " + id + ", no car has been found in DB.");
-            return ResponseEntity.notFound().build();
+            logger.error("Error unregistering the journey, the input is not correct.");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
-        journeyService.checkWaitingJourneys();
-        logger.info("Journey ID "+ id + " correctly unregistered and waiting journeys checked.");
-        return ResponseEntity.ok().build();
+        return dispatchLoop.submit(() -> requests.dropOffJourney(id));
     }
 
 
@@ -150,25 +189,26 @@ public class CarPoolingController {
      * payload can't be unmarshalled.
      */
     @PostMapping(value = "/locate", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
-    public ResponseEntity<CarDataTransferObject> locate(@RequestBody MultiValueMap<String, String> journeyID) {
-        Long id = null;
-        Optional<CarDataTransferObject> carDTOptional = null;
-
+    public CompletableFuture<ResponseEntity<CarDataTransferObject>> locate(@RequestBody MultiValueMap<String, String> journeyID) {
+        long id;
         try {
             id = carPoolingService.mapToId(journeyID);
-            journeyService.journeyWaiting(id);
-            carDTOptional = journeyService.getJourneyCar(id);
         } catch (BadInputException e) {
-            logger.error(e + " Error locating the journey ID " + id + ", the input is not correct.");
-            return ResponseEntity.badRequest().build();
-        } catch (NoCarAvailableException e) {
-            logger.warn(e + " The journey ID " + id + " is still waiting for a car.");
-            return ResponseEntity.noContent().build();
-        } catch (NoJourneyFoundException e) {
-            logger.error(e + " Error, no journey ID " + id +" found in DB.");
-            return ResponseEntity.notFound().build();
+            logger.error("Error locating the journey, the input is not correct.");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
         }
-        logger.info("Journey ID "+ id + " location successful.");
-        return ResponseEntity.ok(carDTOptional.get());
+        return dispatchLoop.submit(() -> requests.locateJourney(id));
+    }
+
+    /**
+     * A request rejected by the DispatchLoop, because its buffer is full or the service is
+     * stopping.
+     *
+     * @return 503 Service Unavailable
+     */
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> rejected(RejectedExecutionException e) {
+        logger.warn("Request rejected: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
     }
 }
@@ -0,0 +1,163 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
+import com.darlandi.carpoolingchallenge.entities.JourneyDataTransferObject;
+import com.darlandi.carpoolingchallenge.exceptions.BadInputException;
+import com.darlandi.carpoolingchallenge.repository.ReactiveRedisReadRepository;
+import com.darlandi.carpoolingchallenge.services.CarPoolingService;
+import com.darlandi.carpoolingchallenge.services.DispatchLoop;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reactive handlers of the Rest API, used with the "reactive" profile instead of the
+ * CarPoolingController. The bodies are read without blocking the event loop, and the
+ * updates are run by the DispatchLoop like in the servlet stack, so the state still has
+ * a single writer. With the Redis store, /locate reads the journey and its car with the
+ * reactive Redis client and does not wait for the dispatch thread, so its consistency is
+ * weaker than in the servlet stack (see locate).
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CarPoolingHandler {
+    private static final Logger logger = LoggerFactory.getLogger(CarPoolingHandler.class);
+    @Autowired
+    private CarPoolingService carPoolingService;
+
+    @Autowired
+    private CarPoolingRequests requests;
+
+    @Autowired
+    private DispatchLoop dispatchLoop;
+
+    @Autowired
+    private ObjectProvider<ReactiveRedisReadRepository> reactiveReadRepository;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    /**
+     * Indicate the service has started up correctly and is ready to accept requests,
+     * once the startup warm-up has finished.
+     */
+    public Mono<ServerResponse> getStatus(ServerRequest request) {
+        if (availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ServerResponse.ok().build();
+    }
+
+    /**
+     * Load the list of available cars and remove all previous data.
+     */
+    public Mono<ServerResponse> loadAvailableCars(ServerRequest request) {
+        return request.bodyToFlux(CarDataTransferObject.class)
+                .collectList()
+                .flatMap(carList -> dispatch(dispatchLoop.submit(() -> requests.registerCars(carList))));
+    }
+
+    /**
+     * A group of people requests to perform a journey.
+     */
+    public Mono<ServerResponse> peopleJourney(ServerRequest request) {
+        return request.bodyToMono(JourneyDataTransferObject.class)
+                .flatMap(journeyDTO -> dispatch(dispatchLoop.submit(() -> requests.registerJourney(journeyDTO))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().build()));
+    }
+
+    /**
+     * Groups of people request to perform journeys, run as one step of the DispatchLoop.
+     */
+    public Mono<ServerResponse> peopleJourneys(ServerRequest request) {
+        return request.bodyToMono(new ParameterizedTypeReference<List<JourneyDataTransferObject>>() {})
+                .flatMap(journeyDTOs -> dispatch(dispatchLoop.submit(() -> requests.registerJourneys(journeyDTOs))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().build()));
+    }
+
+    /**
+     * Groups of people request to be dropped off, run as one step of the DispatchLoop.
+     */
+    public Mono<ServerResponse> dropoffs(ServerRequest request) {
+        return request.bodyToMono(new ParameterizedTypeReference<List<Long>>() {})
+                .flatMap(journeyIDs -> dispatch(dispatchLoop.submit(() -> requests.dropOffJourneys(journeyIDs))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().build()));
+    }
+
+    /**
+     * A group of people requests to be dropped off.
+     */
+    public Mono<ServerResponse> dropoff(ServerRequest request) {
+        return request.formData().flatMap(journeyID -> {
+            long id;
+            try {
+                id = carPoolingService.mapToId(journeyID);
+            } catch (BadInputException e) {
+                logger.error("Error unregistering the journey, the input is not correct.");
+                return ServerResponse.badRequest().build();
+            }
+            return dispatch(dispatchLoop.submit(() -> requests.dropOffJourney(id)));
+        });
+    }
+
+    /**
+     * Return the car a group is traveling with, or no content if they are still waiting.
+     * With the Redis store the read is not a task of the DispatchLoop: it sees every update
+     * whose response has been sent, since each assignment and drop-off is committed by a
+     * single Lua script before, but not the tasks still queued in the loop. A journey just
+     * posted by another client can be not found yet, and a group being reassigned after a
+     * drop-off can still be waiting. The journey and its car are two reads, so a fleet
+     * replaced between them answers not found, as it would right after the replacement.
+     */
+    public Mono<ServerResponse> locate(ServerRequest request) {
+        return request.formData().flatMap(journeyID -> {
+            long id;
+            try {
+                id = carPoolingService.mapToId(journeyID);
+            } catch (BadInputException e) {
+                logger.error("Error locating the journey, the input is not correct.");
+                return ServerResponse.badRequest().build();
+            }
+            ReactiveRedisReadRepository readRepository = reactiveReadRepository.getIfAvailable();
+            if (readRepository == null) {
+                return dispatch(dispatchLoop.submit(() -> requests.locateJourney(id)));
+            }
+            return readRepository.getJourney(id)
+                    .flatMap(journey -> journey.getCarId() == null
+                            ? ServerResponse.noContent().build()
+                            : readRepository.getCar(journey.getCarId()).flatMap(car ->
+                            ServerResponse.ok().bodyValue(new CarDataTransferObject(car.getId(), car.getSeats()))))
+                    .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+        });
+    }
+
+    /**
+     * Wait for the response of a task of the DispatchLoop without blocking. A task rejected
+     * by the DispatchLoop, because its buffer is full or the service is stopping, is
+     * answered with 503 Service Unavailable.
+     */
+    private static Mono<ServerResponse> dispatch(CompletableFuture<? extends ResponseEntity<?>> response) {
+        return Mono.fromFuture(response).flatMap(entity -> {
+            ServerResponse.BodyBuilder builder = ServerResponse.status(entity.getStatusCode());
+            return entity.hasBody() ? builder.bodyValue(entity.getBody()) : builder.build();
+        }).onErrorResume(RejectedExecutionException.class, e -> {
+            logger.warn("Request rejected: {}", e.getMessage());
+            return ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        });
+    }
+}
@@ -0,0 +1,186 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import com.darlandi.carpoolingchallenge.entities.BatchResultDataTransferObject;
+import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.entities.JourneyDataTransferObject;
+import com.darlandi.carpoolingchallenge.exceptions.BadInputException;
+import com.darlandi.carpoolingchallenge.repository.DispatchOperations.DropOffStatus;
+import com.darlandi.carpoolingchallenge.repository.JourneyRepository;
+import com.darlandi.carpoolingchallenge.services.CarPoolingService;
+import com.darlandi.carpoolingchallenge.services.FleetUpload;
+import com.darlandi.carpoolingchallenge.services.JourneyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.darlandi.carpoolingchallenge.utils.SamplingTurboFilter.SAMPLED;
+
+/**
+ * Requests of the Rest API once they have been parsed, shared by the servlet controller
+ * and the reactive handlers. They read and update the car pooling state, so they must
+ * only be run by the DispatchLoop.
+ */
+@Component
+class CarPoolingRequests {
+    private static final Logger logger = LoggerFactory.getLogger(CarPoolingRequests.class);
+    @Autowired
+    private CarPoolingService carPoolingService;
+
+    @Autowired
+    private JourneyRepository journeyRepository;
+
+    @Autowired
+    private JourneyService journeyService;
+
+    /**
+     * Replace the fleet of cars and clear all the journeys.
+     */
+    ResponseEntity<String> registerCars(List<CarDataTransferObject> carList) {
+        journeyRepository.deleteAll();
+        logger.info("All journeys cleared.");
+        try {
+            carPoolingService.register(carList);
+        } catch (BadInputException e) {
+            logger.error("Error registering the car list, the input is not correct or an ID is repeated.");
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("All cars correctly saved in DB.");
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Replace the fleet of cars with an upload read from a stream and clear all the journeys.
+     */
+    ResponseEntity<String> registerCars(FleetUpload upload) {
+        journeyRepository.deleteAll();
+        logger.info("All journeys cleared.");
+        try {
+            carPoolingService.register(upload);
+        } catch (BadInputException e) {
+            logger.error("Error registering the car list, the input is not correct or an ID is repeated.");
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("All cars correctly saved in DB.");
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Register a journey and assign it a car, or add it to the waiting list.
+     */
+    ResponseEntity<String> registerJourney(JourneyDataTransferObject journeyDTO) {
+        try {
+            if (journeyService.register(journeyDTO) == JourneyService.AssignmentResult.WAITING) {
+                logger.info(SAMPLED, "There is no car available for the journey ID {}, added to waiting list.", journeyDTO.getId());
+            }
+        } catch (BadInputException e) {
+            logger.error("Error registering the journey ID {}, the input is not correct or it has already been saved.", journeyDTO.getId());
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info(SAMPLED, "Journey ID {} correctly saved in DB.", journeyDTO.getId());
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Register a batch of journeys in order, with the status of each one.
+     */
+    ResponseEntity<List<BatchResultDataTransferObject>> registerJourneys(List<JourneyDataTransferObject> journeyDTOs) {
+        List<JourneyService.AssignmentResult> results = journeyService.registerAll(journeyDTOs);
+        List<BatchResultDataTransferObject> body = new ArrayList<>(results.size());
+        int rejected = 0;
+        for (int i = 0; i < results.size(); i++) {
+            JourneyDataTransferObject journeyDTO = journeyDTOs.get(i);
+            Long id = journeyDTO == null ? null : journeyDTO.getId();
+            if (results.get(i) == JourneyService.AssignmentResult.REJECTED) {
+                rejected++;
+                body.add(new BatchResultDataTransferObject(id, HttpStatus.BAD_REQUEST.value()));
+            } else {
+                body.add(new BatchResultDataTransferObject(id, HttpStatus.OK.value()));
+            }
+        }
+        if (rejected > 0) {
+            logger.error("Error registering {} journeys of a batch, the input is not correct or they have already been saved.", rejected);
+        }
+        logger.info(SAMPLED, "Batch of {} journeys registered.", results.size());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Drop off a batch of journeys in order, with the status of each one, and reassign
+     * the free seats to the waiting journeys once for the whole batch.
+     */
+    ResponseEntity<List<BatchResultDataTransferObject>> dropOffJourneys(List<Long> ids) {
+        List<Long> journeyIds = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id != null) {
+                journeyIds.add(id);
+            }
+        }
+        List<DropOffStatus> statuses = journeyService.dropOffGroups(journeyIds);
+        List<BatchResultDataTransferObject> body = new ArrayList<>(ids.size());
+        int dropped = 0;
+        int next = 0;
+        for (Long id : ids) {
+            if (id == null) {
+                body.add(new BatchResultDataTransferObject(null, HttpStatus.BAD_REQUEST.value()));
+            } else if (statuses.get(next++) == DropOffStatus.DROPPED) {
+                dropped++;
+                body.add(new BatchResultDataTransferObject(id, HttpStatus.OK.value()));
+            } else {
+                logger.error("Error unregistering the journey ID {}, no journey or car has been found in DB.", id);
+                body.add(new BatchResultDataTransferObject(id, HttpStatus.NOT_FOUND.value()));
+            }
+        }
+        int assigned = dropped > 0 ? journeyService.reassignWaitingJourneys() : 0;
+        logger.info(SAMPLED, "{} journeys of a batch correctly unregistered and {} waiting journeys assigned.", dropped, assigned);
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Drop off a journey and reassign its seats to the waiting journeys.
+     */
+    ResponseEntity<String> dropOffJourney(long id) {
+        switch (journeyService.dropOffGroup(id)) {
+            case JOURNEY_NOT_FOUND:
+                logger.error("Error unregistering the journey ID {}, no journey has been found in DB.", id);
+                return ResponseEntity.notFound().build();
+            case CAR_NOT_FOUND:
+                logger.error("Error unregistering the journey ID {}, no car has been found in DB.", id);
+                return ResponseEntity.notFound().build();
+            default:
+                break;
+        }
+        int assigned = journeyService.reassignWaitingJourneys();
+        logger.info(SAMPLED, "Journey ID {} correctly unregistered and {} waiting journeys assigned.", id, assigned);
+        return ResponseEntity.ok().build();
+    }
+
+    /**
+     * Get the car of a journey, no content if it is waiting.
+     */
+    ResponseEntity<CarDataTransferObject> locateJourney(long id) {
+        Optional<Journey> journeyOptional = journeyService.getJourney(id);
+        if (journeyOptional.isEmpty()) {
+            logger.error("Error, no journey ID {} found in DB.", id);
+            return ResponseEntity.notFound().build();
+        }
+        if (journeyOptional.get().getCarId() == null) {
+            logger.warn(SAMPLED, "The journey ID {} is still waiting for a car.", id);
+            return ResponseEntity.noContent().build();
+        }
+        Optional<CarDataTransferObject> carDTOptional = journeyService.getJourneyCar(journeyOptional.get());
+        if (carDTOptional.isEmpty()) {
+            logger.error("Error, no car ID {} found in DB for the journey ID {}.", journeyOptional.get().getCarId(), id);
+            return ResponseEntity.notFound().build();
+        }
+        logger.info(SAMPLED, "Journey ID {} location successful.", id);
+        return ResponseEntity.ok(carDTOptional.get());
+    }
+}
@@ -0,0 +1,40 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.*;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Routes of the Rest API in the reactive stack, the same paths and media types as the
+ * CarPoolingController. The handlers run in the event loop of Netty.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class CarPoolingRouter {
+
+    /**
+     * Tomcat is also in the classpath for the servlet stack, and it would be preferred.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> carPoolingRoutes(CarPoolingHandler handler) {
+        return route(GET("/status"), handler::getStatus)
+                .andRoute(PUT("/cars"), handler::loadAvailableCars)
+                .andRoute(POST("/journey"), handler::peopleJourney)
+                .andRoute(POST("/journeys:batch"), handler::peopleJourneys)
+                .andRoute(POST("/dropoffs:batch"), handler::dropoffs)
+                .andRoute(POST("/dropoff").and(contentType(MediaType.APPLICATION_FORM_URLENCODED)), handler::dropoff)
+                .andRoute(POST("/locate").and(contentType(MediaType.APPLICATION_FORM_URLENCODED)), handler::locate);
+    }
+}
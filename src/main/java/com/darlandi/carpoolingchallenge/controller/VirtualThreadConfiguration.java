@@ -0,0 +1,67 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Opt-in mode ("carpooling.web.virtual-threads=true") where Tomcat handles every request
+ * in a new virtual thread instead of its pool of platform threads, so a burst of requests
+ * is not limited by the size of the pool.
+ * Virtual threads need a Java 21 runtime and the application is built for Java 17, so the
+ * executor is created by reflection; on an older runtime the platform threads are kept.
+ * With "carpooling.web.trace-pinned-threads" (short or full) the JVM prints the stack of
+ * any virtual thread that blocks while pinned to its carrier, for example inside a
+ * synchronized block.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "carpooling.web.virtual-threads", havingValue = "true")
+public class VirtualThreadConfiguration {
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfiguration.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadExecutorCustomizer(
+            @Value("${carpooling.web.trace-pinned-threads:}") String tracePinnedThreads) {
+        if (!tracePinnedThreads.isEmpty()) {
+            // Read by the JVM when the first virtual thread is created.
+            System.setProperty("jdk.tracePinnedThreads", tracePinnedThreads);
+        }
+        ExecutorService executor = newVirtualThreadExecutor();
+        if (executor == null) {
+            return protocolHandler -> {
+            };
+        }
+        logger.info("Requests handled in virtual threads.");
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    /**
+     * Create an executor that starts a virtual thread named "http-virtual-n" for every task.
+     *
+     * @return ExecutorService, or null if the runtime does not support virtual threads.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "http-virtual-", 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Virtual threads are not supported by Java {}, the requests are handled in platform threads.",
+                    Runtime.version().feature());
+            return null;
+        }
+    }
+}
@@ -3,8 +3,10 @@ package com.darlandi.carpoolingchallenge.embeddedRedis;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 /**
  * Redis is a NoSQL database, it is very fast to store key-value data structures.
@@ -13,18 +15,46 @@ import org.springframework.data.redis.repository.configuration.EnableRedisReposi
  * Lettuce is the connector chosen because it is thread-safe.
  */
 @Configuration
-@EnableRedisRepositories
 public class RedisConfiguration {
 
+    /**
+     * The shared connection is opened with the context instead of by the first request,
+     * so a Redis that is not reachable fails the startup.
+     */
     @Bean
     public LettuceConnectionFactory redisConnectionFactory(final RedisProperties redisProperties) {
-        return new LettuceConnectionFactory(redisProperties.getRedisHost(), redisProperties.getRedisPort());
+        LettuceConnectionFactory connectionFactory =
+                new LettuceConnectionFactory(redisProperties.getRedisHost(), redisProperties.getRedisPort());
+        connectionFactory.setEagerInitialization(true);
+        return connectionFactory;
     }
 
+    /**
+     * Template used by the stores. The keys are strings and the values are already
+     * encoded in the compact binary format of the stores.
+     */
     @Bean
-    public RedisTemplate<?, ?> redisTemplate(final LettuceConnectionFactory connectionFactory) {
-        RedisTemplate<byte[], byte[]> template = new RedisTemplate<>();
+    public RedisTemplate<String, byte[]> redisTemplate(final LettuceConnectionFactory connectionFactory) {
+        RedisTemplate<String, byte[]> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(RedisSerializer.byteArray());
+        template.setHashKeySerializer(RedisSerializer.byteArray());
+        template.setHashValueSerializer(RedisSerializer.byteArray());
         return template;
     }
-}
\ No newline at end of file
+
+    /**
+     * Non-blocking template with the same serializers, used by the reactive handlers.
+     */
+    @Bean
+    public ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate(final LettuceConnectionFactory connectionFactory) {
+        RedisSerializationContext<String, byte[]> serializationContext = RedisSerializationContext
+                .<String, byte[]>newSerializationContext(RedisSerializer.string())
+                .value(RedisSerializer.byteArray())
+                .hashKey(RedisSerializer.byteArray())
+                .hashValue(RedisSerializer.byteArray())
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+}
@@ -0,0 +1,33 @@
+package com.darlandi.carpoolingchallenge.entities;
+
+/**
+ * Result of one item of a batch request, with the HTTP status it would have had alone.
+ */
+public class BatchResultDataTransferObject {
+    private Long id;
+    private Integer status;
+
+    public BatchResultDataTransferObject() {
+    }
+
+    public BatchResultDataTransferObject(Long id, Integer status) {
+        this.id = id;
+        this.status = status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public void setStatus(Integer status) {
+        this.status = status;
+    }
+}
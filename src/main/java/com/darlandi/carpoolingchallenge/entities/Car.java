@@ -1,50 +1,48 @@
 package com.darlandi.carpoolingchallenge.entities;
 
-import org.springframework.data.redis.core.RedisHash;
-
-import javax.persistence.Id;
 import java.io.Serializable;
 
 /**
  * Car object to be stored in the Redis DB.
  * AvailableSeats is necessary to know the people who can travel in the car.
+ * The fields are primitive: the cars are created for every assignment and lookup,
+ * and the stores keep them in their own compact formats.
  */
 public class Car implements Serializable {
-    private Long id;
-    private Integer seats;
-    private Integer availableSeats;
+    private long id;
+    private int seats;
+    private int availableSeats;
 
     public Car() {
     }
 
-    public Car(Long id, Integer totalSeats) {
+    public Car(long id, int totalSeats) {
         this.id = id;
         this.seats = totalSeats;
         this.availableSeats = totalSeats;
     }
 
-    public Integer getAvailableSeats() {
+    public int getAvailableSeats() {
         return availableSeats;
     }
 
-    public void setAvailableSeats(Integer availableSeats) {
+    public void setAvailableSeats(int availableSeats) {
         this.availableSeats = availableSeats;
     }
 
-    public Long getId() {
+    public long getId() {
         return id;
     }
 
-    public void setId(Long id) {
+    public void setId(long id) {
         this.id = id;
     }
 
-    public Integer getSeats() {
+    public int getSeats() {
         return seats;
     }
 
-    public void setSeats(Integer seats) {
+    public void setSeats(int seats) {
         this.seats = seats;
     }
 }
-
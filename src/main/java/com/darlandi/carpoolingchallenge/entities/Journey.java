@@ -4,30 +4,24 @@ import java.io.Serializable;
 
 /**
  * Journey object to be stored in the Redis DB.
- * The carId is assigned when there is an available car for that journey.
+ * The carId is assigned when there is an available car for that journey, it is null
+ * while the journey is waiting. The arrival is read from the monotonic clock by the
+ * instance that registers the journey, and it is not saved in the stores.
  */
 public class Journey implements Serializable {
-    private Long id;
-    private Integer people;
+    private long id;
+    private int people;
     private Long carId;
-    private int waitingWeight;
+    private transient long arrivalNanos;
 
     public Journey() {
     }
 
-    public Journey(Long id, Integer people) {
+    public Journey(long id, int people) {
         this.id = id;
         this.people = people;
     }
 
-    public int getWaitingWeight() {
-        return waitingWeight;
-    }
-
-    public void setWaitingWeight(Integer waitingWeight) {
-        this.waitingWeight = waitingWeight;
-    }
-
     public Long getCarId() {
         return carId;
     }
@@ -36,11 +30,11 @@ public class Journey implements Serializable {
         this.carId = carId;
     }
 
-    public Long getId() {
+    public long getId() {
         return id;
     }
 
-    public void setId(Long id) {
+    public void setId(long id) {
         this.id = id;
     }
 
@@ -48,7 +42,15 @@ public class Journey implements Serializable {
         return people;
     }
 
-    public void setPeople(Integer people) {
+    public void setPeople(int people) {
         this.people = people;
     }
+
+    public long getArrivalNanos() {
+        return arrivalNanos;
+    }
+
+    public void setArrivalNanos(long arrivalNanos) {
+        this.arrivalNanos = arrivalNanos;
+    }
 }
@@ -1,8 +0,0 @@
-package com.darlandi.carpoolingchallenge.exceptions;
-
-public class NoCarAvailableException extends Exception {
-
-    public NoCarAvailableException(){
-        super();
-    }
-}
@@ -1,8 +0,0 @@
-package com.darlandi.carpoolingchallenge.exceptions;
-
-public class NoCarFoundException extends Exception {
-    public NoCarFoundException() {
-        super();
-    }
-}
-
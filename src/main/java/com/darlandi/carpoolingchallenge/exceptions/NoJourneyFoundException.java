@@ -1,8 +0,0 @@
-package com.darlandi.carpoolingchallenge.exceptions;
-
-public class NoJourneyFoundException extends Exception {
-
-    public NoJourneyFoundException(){
-        super();
-    }
-}
@@ -0,0 +1,7 @@
+package com.darlandi.carpoolingchallenge.exceptions;
+
+public class UploadInProgressException extends Exception {
+    public UploadInProgressException() {
+        super();
+    }
+}
@@ -1,37 +1,35 @@
 package com.darlandi.carpoolingchallenge.repository;
 
 import com.darlandi.carpoolingchallenge.entities.Car;
-import com.darlandi.carpoolingchallenge.utils.Constants;
-import org.springframework.data.redis.core.HashOperations;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 /**
  * Repository to store cars.
- * Save them into sub-lists depending on the available seats.
+ * Save them into sub-lists depending on the available seats, using the configured CarStore.
+ * The cars are not written to the DispatchJournal one by one: a snapshot is saved when
+ * the fleet is replaced, and the seats of the cars follow from the journeys.
  */
 @Repository
 public class CarPoolingRepository {
-    private final HashOperations hashOperations;
+    private final CarStore carStore;
+    private final DispatchJournal journal;
 
-
-    public CarPoolingRepository(RedisTemplate redisTemplate) {
-        this.hashOperations = redisTemplate.opsForHash();
+    public CarPoolingRepository(CarStore carStore, ObjectProvider<DispatchJournal> journal) {
+        this.carStore = carStore;
+        this.journal = journal.getIfAvailable(() -> DispatchJournal.NONE);
     }
 
     /**
-     * Save a car in Redis DB.
+     * Save a car in the store.
      *
-     * @param seatsAvailable Number of seats available.
      * @param car Car Object.
      */
-    public void create(int seatsAvailable, Car car) {
-
-        hashOperations.putIfAbsent(seatsAvailable, car.getId(), car);
+    public void create(Car car) {
+        carStore.create(car);
     }
 
     /**
@@ -42,9 +40,7 @@ public class CarPoolingRepository {
      * @param car Car object.
      */
     public void update(int availableSeats, Car car) {
-        hashOperations.delete(car.getAvailableSeats(), car.getId());
-        car.setAvailableSeats(availableSeats);
-        hashOperations.put(availableSeats, car.getId(), car);
+        carStore.update(availableSeats, car);
     }
 
     /**
@@ -54,12 +50,27 @@ public class CarPoolingRepository {
      * @return Optional Car.
      */
     public Optional<Car> getCarSeatsAvailable(int seatsAvailable) {
-        try {
-            Car car = (Car) hashOperations.values(seatsAvailable).get(0);
-            return Optional.of(car);
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+        return carStore.getCarSeatsAvailable(seatsAvailable);
+    }
+
+    /**
+     * Return a car with the given seats available and total seats.
+     *
+     * @param seatsAvailable Number of seats available.
+     * @param seats Number of seats of the car.
+     * @return Optional Car.
+     */
+    public Optional<Car> getCar(int seatsAvailable, int seats) {
+        return carStore.getCar(seatsAvailable, seats);
+    }
+
+    /**
+     * Get the highest number of seats available in any car.
+     *
+     * @return Number of seats available, 0 if every car is full.
+     */
+    public int maxSeatsAvailable() {
+        return carStore.maxSeatsAvailable();
     }
 
     /**
@@ -69,15 +80,10 @@ public class CarPoolingRepository {
      * @return Optional Car.
      */
     public Optional<Car> get(Long carId) {
-        if (carId != null) {
-            for (int i = 0; i <= Constants.MAX_SEATS; i++) {
-                Car car = (Car) hashOperations.get(i, carId);
-                if (car != null) {
-                    return Optional.of(car);
-                }
-            }
+        if (carId == null) {
+            return Optional.empty();
         }
-        return Optional.empty();
+        return carStore.get(carId);
     }
 
     /**
@@ -87,32 +93,81 @@ public class CarPoolingRepository {
      * @return List Car
      */
     public List<Car> getAll(int seatsAvailable) {
-        return (List<Car>) hashOperations.values(seatsAvailable);
+        return carStore.getAll(seatsAvailable);
     }
 
     /**
-     * Clear all the cars stored in Redis DB
+     * Number of cars depending on their seats available.
+     *
+     * @param seatsAvailable Number of seats available.
+     * @return Number of cars.
      */
-    public void deleteAll() {
-        for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
-            if (hashOperations.size(seats) > 0) {
-                Set<Long> carIdSet = hashOperations.keys(seats);
-                for (Long carId : carIdSet) {
-                    hashOperations.delete(seats, carId);
-                }
-            }
+    public long size(int seatsAvailable) {
+        return carStore.size(seatsAvailable);
+    }
+
+    /**
+     * Number of cars with at least the given total seats, where a group of that size
+     * fits once the car is empty.
+     *
+     * @param seats Minimum number of seats of the car.
+     * @return Number of cars.
+     */
+    public long sizeWithSeats(int seats) {
+        return carStore.sizeWithSeats(seats);
+    }
+
+    /**
+     * Start the bulk load of a new fleet that replaces all the cars when it is committed.
+     *
+     * @param batchSize Number of cars written at once.
+     * @return FleetLoader of the new fleet.
+     */
+    public FleetLoader newLoader(int batchSize) {
+        FleetLoader loader = carStore.newLoader(batchSize);
+        if (!journal.isEnabled()) {
+            return loader;
         }
+        return new FleetLoader() {
+            @Override
+            public void add(Car car) {
+                loader.add(car);
+            }
+
+            @Override
+            public void commit() {
+                loader.commit();
+                journal.snapshot();
+            }
+
+            @Override
+            public void abort() {
+                loader.abort();
+            }
+        };
+    }
+
+    /**
+     * Clear all the cars stored.
+     */
+    public void deleteAll() {
+        carStore.deleteAll();
+        journal.snapshot();
     }
 
     /**
-     * Number of cars stored in the Redis DB.
+     * Number of cars stored.
      * @return Number of cars.
      */
     public long totalSize(){
-        long size = 0;
-        for (int seats = 0; seats <= Constants.MAX_SEATS; seats++){
-            size += hashOperations.size(seats);
-        }
-        return size;
+        return carStore.totalSize();
+    }
+
+    /**
+     * Check that the index of cars matches the buckets of available seats.
+     * @return List of inconsistencies found, empty if the store is consistent.
+     */
+    public List<String> checkConsistency() {
+        return carStore.checkConsistency();
     }
 }
@@ -0,0 +1,114 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage engine for the cars. Cars are grouped in buckets depending on their
+ * available seats, so the first car with the required seats is found without
+ * scanning the fleet.
+ * The engine is selected with the "carpooling.store" property.
+ */
+public interface CarStore {
+
+    /**
+     * Save a car in the bucket of its available seats, if it is not already saved.
+     *
+     * @param car Car object.
+     */
+    void create(Car car);
+
+    /**
+     * Move a car to the bucket of its new available seats.
+     *
+     * @param availableSeats Number of seats available.
+     * @param car            Car object, its available seats are updated.
+     */
+    void update(int availableSeats, Car car);
+
+    /**
+     * Return the first car with exactly the required seats available.
+     *
+     * @param seatsAvailable Number of seats available.
+     * @return Optional Car.
+     */
+    Optional<Car> getCarSeatsAvailable(int seatsAvailable);
+
+    /**
+     * Return a car with the given seats available and total seats.
+     *
+     * @param seatsAvailable Number of seats available.
+     * @param seats Number of seats of the car.
+     * @return Optional Car.
+     */
+    Optional<Car> getCar(int seatsAvailable, int seats);
+
+    /**
+     * Get the highest number of seats available in any car.
+     *
+     * @return Number of seats available, 0 if every car is full.
+     */
+    int maxSeatsAvailable();
+
+    /**
+     * Get a car given its id.
+     *
+     * @param carId ID of the car.
+     * @return Optional Car.
+     */
+    Optional<Car> get(long carId);
+
+    /**
+     * Get all the cars with the given seats available.
+     *
+     * @param seatsAvailable Number of seats available.
+     * @return List Car.
+     */
+    List<Car> getAll(int seatsAvailable);
+
+    /**
+     * Number of cars with the given seats available.
+     *
+     * @param seatsAvailable Number of seats available.
+     * @return Number of cars.
+     */
+    long size(int seatsAvailable);
+
+    /**
+     * Number of cars with at least the given total seats, whatever their seats available.
+     *
+     * @param seats Minimum number of seats of the car.
+     * @return Number of cars.
+     */
+    long sizeWithSeats(int seats);
+
+    /**
+     * Start the bulk load of a new fleet that replaces all the cars when it is committed.
+     *
+     * @param batchSize Number of cars written at once.
+     * @return FleetLoader of the new fleet.
+     */
+    FleetLoader newLoader(int batchSize);
+
+    /**
+     * Clear all the cars.
+     */
+    void deleteAll();
+
+    /**
+     * Number of cars stored.
+     *
+     * @return Number of cars.
+     */
+    long totalSize();
+
+    /**
+     * Check that every car can be found by its ID and that it is saved in the
+     * bucket of its available seats.
+     *
+     * @return List of inconsistencies found, empty if the store is consistent.
+     */
+    List<String> checkConsistency();
+}
@@ -0,0 +1,81 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+/**
+ * Journal of the changes of the dispatch state, to recover it after a restart when the
+ * state is only kept in-process. The events are recorded by the repositories as they
+ * apply them, in the DispatchLoop thread, and they are made durable at once for a group
+ * of tasks with sync(). The Redis store does not need it, so by default every method
+ * does nothing.
+ */
+public interface DispatchJournal {
+
+    /**
+     * Journal that records nothing.
+     */
+    DispatchJournal NONE = new DispatchJournal() {
+    };
+
+    /**
+     * Whether the events are recorded, so the responses must wait for sync().
+     *
+     * @return True if the events are recorded.
+     */
+    default boolean isEnabled() {
+        return false;
+    }
+
+    /**
+     * A new journey has been saved.
+     *
+     * @param journeyId ID of the journey.
+     * @param people    Number of people of the journey.
+     */
+    default void registered(long journeyId, int people) {
+    }
+
+    /**
+     * A journey has been added at the end of the waiting list, or at the top.
+     *
+     * @param journeyId ID of the journey.
+     * @param people    Number of people of the journey.
+     * @param first     True if it has been added at the top.
+     */
+    default void waiting(long journeyId, int people, boolean first) {
+    }
+
+    /**
+     * A journey has taken its seats in a car and left the waiting list.
+     *
+     * @param journeyId ID of the journey.
+     * @param carId     ID of the car.
+     */
+    default void assigned(long journeyId, long carId) {
+    }
+
+    /**
+     * A journey has freed its seats, or left the waiting list, and has been deleted.
+     *
+     * @param journeyId ID of the journey.
+     */
+    default void dropped(long journeyId) {
+    }
+
+    /**
+     * All the journeys and the waiting list have been cleared.
+     */
+    default void cleared() {
+    }
+
+    /**
+     * The fleet has been replaced or cleared: save the whole state, so the previous
+     * events are not replayed anymore.
+     */
+    default void snapshot() {
+    }
+
+    /**
+     * Make the events recorded since the last call durable.
+     */
+    default void sync() {
+    }
+}
@@ -0,0 +1,73 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Operations that change a car and a journey together. Each implementation decides how
+ * the steps are kept consistent: the in-memory store runs them on the dispatch loop, and
+ * the Redis store runs them as a single Lua script on the server.
+ */
+public interface DispatchOperations {
+
+    /**
+     * Assign the first car found of the classes chosen by the SeatAssignmentStrategy for
+     * the journey. Update the seats available of the car, the car ID of the journey and remove the journey from
+     * the waiting list.
+     *
+     * @param journey Journey object. Its car ID is set if a car is assigned.
+     * @return Optional Car assigned, with its new seats available.
+     */
+    Optional<Car> assign(Journey journey);
+
+    /**
+     * Free the seats of the journey in its car, or remove it from the waiting list,
+     * and delete the journey.
+     *
+     * @param journeyId ID of the journey.
+     * @return Result of the drop off.
+     */
+    DropOffStatus dropOff(long journeyId);
+
+    /**
+     * Assign a car to every journey, in the order of the list. A journey can take the seats
+     * freed or left by the previous ones.
+     *
+     * @param journeys List of journeys. Their car ID is set if a car is assigned.
+     * @return List of Optional Car assigned, in the order of the journeys.
+     */
+    default List<Optional<Car>> assignAll(List<Journey> journeys) {
+        List<Optional<Car>> cars = new ArrayList<>(journeys.size());
+        for (Journey journey : journeys) {
+            cars.add(assign(journey));
+        }
+        return cars;
+    }
+
+    /**
+     * Drop off every journey, in the order of the list.
+     *
+     * @param journeyIds List of journey IDs.
+     * @return List of results, in the order of the journeys.
+     */
+    default List<DropOffStatus> dropOffAll(List<Long> journeyIds) {
+        List<DropOffStatus> statuses = new ArrayList<>(journeyIds.size());
+        for (long journeyId : journeyIds) {
+            statuses.add(dropOff(journeyId));
+        }
+        return statuses;
+    }
+
+    /**
+     * Result of a drop off.
+     */
+    enum DropOffStatus {
+        DROPPED,
+        JOURNEY_NOT_FOUND,
+        CAR_NOT_FOUND
+    }
+}
@@ -0,0 +1,408 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Append-only journal of the in-memory dispatch state, enabled with
+ * "carpooling.journal.enabled=true".
+ * Every event is a fixed record of 17 bytes (type, journey ID and people or car ID)
+ * buffered by the DispatchLoop thread. On sync() the records of the group of tasks are
+ * written as one frame, with its length and CRC32C, with a single FileChannel write and
+ * an optional fsync. A snapshot of the cars, journeys and waiting list is saved when the
+ * fleet is replaced and every "carpooling.journal.snapshot-events" events, so the replay
+ * is bounded. The snapshot n only needs the journal n: a new snapshot is renamed over
+ * the previous one before the previous journal is deleted, so a crash in the middle
+ * never replays an event twice.
+ * At startup the snapshot and the journal are memory-mapped and replayed into the
+ * stores, until the end or the first torn frame, which is truncated.
+ */
+@Repository
+@ConditionalOnExpression("${carpooling.journal.enabled:false} and '${carpooling.store:memory}' == 'memory'")
+public class FileDispatchJournal implements DispatchJournal {
+    private static final Logger logger = LoggerFactory.getLogger(FileDispatchJournal.class);
+    private static final long SNAPSHOT_MAGIC = 0x4350534E41503031L;
+    private static final String SNAPSHOT = "snapshot.bin";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".bin";
+    private static final int RECORD_SIZE = 17;
+    private static final int FRAME_HEADER_SIZE = 8;
+    private static final int ASSIGNED_FLAG = 0x80;
+    private static final byte REGISTERED = 1;
+    private static final byte WAITING = 2;
+    private static final byte WAITING_FIRST = 3;
+    private static final byte ASSIGNED = 4;
+    private static final byte DROPPED = 5;
+    private static final byte CLEARED = 6;
+
+    private final CarStore carStore;
+    private final InMemoryJourneyStore journeyStore;
+    private final WaitingQueue waitingQueue;
+    private final Path directory;
+    private final boolean fsync;
+    private final long snapshotEvents;
+    private final ByteBuffer header = ByteBuffer.allocate(FRAME_HEADER_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private ByteBuffer records = ByteBuffer.allocate(64 * 1024);
+    private FileChannel journal;
+    private long sequence;
+    private long eventsSinceSnapshot;
+
+    public FileDispatchJournal(CarStore carStore, InMemoryJourneyStore journeyStore, WaitingQueue waitingQueue,
+                               @Value("${carpooling.journal.dir:journal}") String directory,
+                               @Value("${carpooling.journal.fsync:true}") boolean fsync,
+                               @Value("${carpooling.journal.snapshot-events:1000000}") long snapshotEvents) {
+        this.carStore = carStore;
+        this.journeyStore = journeyStore;
+        this.waitingQueue = waitingQueue;
+        this.directory = Paths.get(directory);
+        this.fsync = fsync;
+        this.snapshotEvents = Math.max(1, snapshotEvents);
+    }
+
+    /**
+     * Load the last snapshot and replay its journal, then open the journal for appending.
+     */
+    @PostConstruct
+    public void recover() throws IOException {
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT);
+        sequence = Files.exists(snapshot) ? loadSnapshot(snapshot) : 0;
+        Path journalPath = journalPath(sequence);
+        long events = 0;
+        long validEnd = 0;
+        if (Files.exists(journalPath)) {
+            try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+                MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                events = replay(mapped);
+                validEnd = mapped.position();
+            }
+        }
+        journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (journal.size() > validEnd) {
+            logger.warn("Truncating {} bytes of a torn frame at the end of {}.", journal.size() - validEnd, journalPath);
+            journal.truncate(validEnd);
+        }
+        journal.position(validEnd);
+        eventsSinceSnapshot = events;
+        deleteJournalsExcept(sequence);
+        logger.info("Dispatch state recovered in {} ms: {} cars, {} journeys, {} waiting, {} events replayed.",
+                (System.nanoTime() - start) / 1_000_000, carStore.totalSize(), journeyStore.size(),
+                waitingQueue.size(), events);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        sync();
+        journal.close();
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void registered(long journeyId, int people) {
+        append(REGISTERED, journeyId, people);
+    }
+
+    @Override
+    public void waiting(long journeyId, int people, boolean first) {
+        append(first ? WAITING_FIRST : WAITING, journeyId, people);
+    }
+
+    @Override
+    public void assigned(long journeyId, long carId) {
+        append(ASSIGNED, journeyId, carId);
+    }
+
+    @Override
+    public void dropped(long journeyId) {
+        append(DROPPED, journeyId, 0);
+    }
+
+    @Override
+    public void cleared() {
+        append(CLEARED, 0, 0);
+    }
+
+    @Override
+    public void sync() {
+        if (records.position() == 0) {
+            return;
+        }
+        try {
+            write();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (eventsSinceSnapshot >= snapshotEvents) {
+            snapshot();
+        }
+    }
+
+    /**
+     * Write the snapshot of the next sequence and start its journal. The events buffered
+     * before are written to the current journal first, in case the snapshot fails.
+     */
+    @Override
+    public void snapshot() {
+        try {
+            write();
+            long next = sequence + 1;
+            FileChannel nextJournal = FileChannel.open(journalPath(next), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            Path temporary = directory.resolve(SNAPSHOT + ".tmp");
+            writeSnapshot(temporary, next);
+            Files.move(temporary, directory.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            journal.close();
+            journal = nextJournal;
+            Files.deleteIfExists(journalPath(sequence));
+            sequence = next;
+            eventsSinceSnapshot = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void append(byte type, long journeyId, long value) {
+        if (records.remaining() < RECORD_SIZE) {
+            ByteBuffer larger = ByteBuffer.allocate(records.capacity() * 2);
+            records.flip();
+            larger.put(records);
+            records = larger;
+        }
+        records.put(type).putLong(journeyId).putLong(value);
+    }
+
+    /**
+     * Write the buffered records as one frame and clear the buffer.
+     */
+    private void write() throws IOException {
+        if (records.position() == 0) {
+            return;
+        }
+        records.flip();
+        crc.reset();
+        crc.update(records.duplicate());
+        header.clear();
+        header.putInt(records.remaining()).putInt((int) crc.getValue()).flip();
+        eventsSinceSnapshot += records.remaining() / RECORD_SIZE;
+        ByteBuffer[] frame = {header, records};
+        while (records.hasRemaining()) {
+            journal.write(frame);
+        }
+        if (fsync) {
+            journal.force(false);
+        }
+        records.clear();
+    }
+
+    /**
+     * Apply the valid frames of a journal, and leave the buffer at the end of the last one.
+     *
+     * @return Number of events applied.
+     */
+    private long replay(ByteBuffer buffer) {
+        long events = 0;
+        while (buffer.remaining() >= FRAME_HEADER_SIZE) {
+            int frameStart = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length % RECORD_SIZE != 0 || buffer.remaining() < length) {
+                buffer.position(frameStart);
+                break;
+            }
+            ByteBuffer frame = buffer.slice(buffer.position(), length);
+            crc.reset();
+            crc.update(frame.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(frameStart);
+                break;
+            }
+            while (frame.hasRemaining()) {
+                apply(frame.get(), frame.getLong(), frame.getLong());
+                events++;
+            }
+            buffer.position(buffer.position() + length);
+        }
+        return events;
+    }
+
+    /**
+     * Apply an event to the stores, the same way the repositories did.
+     */
+    private void apply(byte type, long journeyId, long value) {
+        switch (type) {
+            case REGISTERED:
+                journeyStore.create(new Journey(journeyId, (int) value));
+                break;
+            case WAITING:
+                waitingQueue.addLast(journeyId, (int) value);
+                break;
+            case WAITING_FIRST:
+                waitingQueue.addFirst(journeyId, (int) value);
+                break;
+            case ASSIGNED:
+                journeyStore.get(journeyId).ifPresent(journey -> carStore.get(value).ifPresent(car -> {
+                    carStore.update(car.getAvailableSeats() - journey.getPeople(), car);
+                    journey.setCarId(value);
+                    journeyStore.update(journey);
+                    waitingQueue.remove(journeyId);
+                }));
+                break;
+            case DROPPED:
+                journeyStore.get(journeyId).ifPresent(journey -> {
+                    if (journey.getCarId() == null) {
+                        waitingQueue.remove(journeyId);
+                    } else {
+                        carStore.get(journey.getCarId()).ifPresent(car ->
+                                carStore.update(car.getAvailableSeats() + journey.getPeople(), car));
+                    }
+                    journeyStore.delete(journeyId);
+                });
+                break;
+            case CLEARED:
+                journeyStore.clear();
+                waitingQueue.clear();
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal event " + type);
+        }
+    }
+
+    /**
+     * Save the cars in the order of their buckets, so they keep their positions, the
+     * journeys and the waiting list in arrival order, followed by the CRC32C of the file.
+     */
+    private void writeSnapshot(Path path, long snapshotSequence) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CRC32C checksum = new CRC32C();
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), checksum), 64 * 1024));
+            output.writeLong(SNAPSHOT_MAGIC);
+            output.writeLong(snapshotSequence);
+            output.writeInt((int) carStore.totalSize());
+            for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+                for (Car car : carStore.getAll(seats)) {
+                    output.writeLong(car.getId());
+                    output.writeByte(car.getSeats());
+                    output.writeByte(car.getAvailableSeats());
+                }
+            }
+            output.writeInt((int) journeyStore.size());
+            IOException[] error = new IOException[1];
+            journeyStore.forEach(journey -> {
+                try {
+                    output.writeLong(journey.getId());
+                    output.writeByte(journey.getCarId() == null ? journey.getPeople() : journey.getPeople() | ASSIGNED_FLAG);
+                    output.writeLong(journey.getCarId() == null ? 0 : journey.getCarId());
+                } catch (IOException e) {
+                    error[0] = e;
+                }
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            List<Long> waiting = waitingQueue.getAll();
+            output.writeInt(waiting.size());
+            for (long journeyId : waiting) {
+                output.writeLong(journeyId);
+            }
+            output.flush();
+            output.writeInt((int) checksum.getValue());
+            output.flush();
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Replace the state of the stores with a snapshot.
+     *
+     * @return Sequence of the journal that follows the snapshot.
+     */
+    private long loadSnapshot(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32C checksum = new CRC32C();
+            checksum.update(buffer.slice(0, buffer.limit() - Integer.BYTES));
+            if (buffer.getLong() != SNAPSHOT_MAGIC || buffer.getInt(buffer.limit() - Integer.BYTES) != (int) checksum.getValue()) {
+                throw new IOException("The snapshot " + path + " is corrupted.");
+            }
+            long snapshotSequence = buffer.getLong();
+            carStore.deleteAll();
+            journeyStore.clear();
+            waitingQueue.clear();
+            int cars = buffer.getInt();
+            for (int i = 0; i < cars; i++) {
+                Car car = new Car(buffer.getLong(), buffer.get());
+                car.setAvailableSeats(buffer.get());
+                carStore.create(car);
+            }
+            int journeys = buffer.getInt();
+            for (int i = 0; i < journeys; i++) {
+                long journeyId = buffer.getLong();
+                int people = buffer.get();
+                long carId = buffer.getLong();
+                Journey journey = new Journey(journeyId, people & ~ASSIGNED_FLAG);
+                if ((people & ASSIGNED_FLAG) != 0) {
+                    journey.setCarId(carId);
+                }
+                journeyStore.update(journey);
+            }
+            int waiting = buffer.getInt();
+            for (int i = 0; i < waiting; i++) {
+                long journeyId = buffer.getLong();
+                Optional<Journey> journey = journeyStore.get(journeyId);
+                journey.ifPresent(value -> waitingQueue.addLast(journeyId, value.getPeople()));
+            }
+            return snapshotSequence;
+        }
+    }
+
+    private Path journalPath(long journalSequence) {
+        return directory.resolve(JOURNAL_PREFIX + journalSequence + JOURNAL_SUFFIX);
+    }
+
+    private void deleteJournalsExcept(long journalSequence) throws IOException {
+        String current = journalPath(journalSequence).getFileName().toString();
+        try (DirectoryStream<Path> journals = Files.newDirectoryStream(directory, JOURNAL_PREFIX + "*" + JOURNAL_SUFFIX)) {
+            for (Path path : journals) {
+                if (!path.getFileName().toString().equals(current)) {
+                    Files.delete(path);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+
+/**
+ * Bulk load of a new fleet. The cars are written aside from the current fleet, which
+ * is still the one used until the load is committed, so a half-loaded fleet is never seen.
+ * The cars must have already been validated and their IDs must be unique.
+ */
+public interface FleetLoader {
+
+    /**
+     * Add a car to the new fleet.
+     *
+     * @param car Car object.
+     */
+    void add(Car car);
+
+    /**
+     * Replace the current fleet with the new one.
+     */
+    void commit();
+
+    /**
+     * Discard the new fleet and keep the current one.
+     */
+    void abort();
+}
@@ -0,0 +1,239 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import com.darlandi.carpoolingchallenge.utils.LongArrayBag;
+import com.darlandi.carpoolingchallenge.utils.LongLongHashMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-process car store, the default engine.
+ * Every bucket of available seats is split by the seats of the cars, and every part is
+ * a bag of primitive car IDs. Each car ID is mapped to a packed long with its seats,
+ * available seats and position in its bag. Finding a car with some seats available (and
+ * some seats) and moving a car between buckets are O(1), with no round-trip to Redis.
+ * It is not thread-safe, it is only used by the DispatchLoop thread.
+ */
+@Repository
+@ConditionalOnProperty(name = "carpooling.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryCarStore implements CarStore {
+    private static final long MISSING = -1L;
+
+    private LongLongHashMap cars = new LongLongHashMap();
+    private LongArrayBag[] buckets = new LongArrayBag[(Constants.MAX_SEATS + 1) * (Constants.MAX_SEATS + 1)];
+
+    public InMemoryCarStore() {
+        for (int bucket = 0; bucket < buckets.length; bucket++) {
+            buckets[bucket] = new LongArrayBag();
+        }
+    }
+
+    @Override
+    public void create(Car car) {
+        if (!cars.containsKey(car.getId())) {
+            insert(car.getId(), car.getSeats(), car.getAvailableSeats());
+        }
+    }
+
+    @Override
+    public void update(int availableSeats, Car car) {
+        long packed = cars.get(car.getId(), MISSING);
+        if (packed == MISSING) {
+            insert(car.getId(), car.getSeats(), availableSeats);
+        } else {
+            removeFromBucket(bucket(available(packed), seats(packed)), position(packed));
+            insert(car.getId(), seats(packed), availableSeats);
+        }
+        car.setAvailableSeats(availableSeats);
+    }
+
+    @Override
+    public Optional<Car> getCarSeatsAvailable(int seatsAvailable) {
+        if (seatsAvailable < 0 || seatsAvailable > Constants.MAX_SEATS) {
+            return Optional.empty();
+        }
+        for (int seats = seatsAvailable; seats <= Constants.MAX_SEATS; seats++) {
+            Optional<Car> car = getCar(seatsAvailable, seats);
+            if (car.isPresent()) {
+                return car;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Car> getCar(int seatsAvailable, int seats) {
+        LongArrayBag bucket = buckets[bucket(seatsAvailable, seats)];
+        if (bucket.isEmpty()) {
+            return Optional.empty();
+        }
+        long carId = bucket.last();
+        return Optional.of(toCar(carId, cars.get(carId, MISSING)));
+    }
+
+    @Override
+    public int maxSeatsAvailable() {
+        for (int seats = Constants.MAX_SEATS; seats > 0; seats--) {
+            if (size(seats) > 0) {
+                return seats;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public Optional<Car> get(long carId) {
+        long packed = cars.get(carId, MISSING);
+        if (packed == MISSING) {
+            return Optional.empty();
+        }
+        return Optional.of(toCar(carId, packed));
+    }
+
+    @Override
+    public List<Car> getAll(int seatsAvailable) {
+        List<Car> carList = new ArrayList<>((int) size(seatsAvailable));
+        for (int seats = seatsAvailable; seats <= Constants.MAX_SEATS; seats++) {
+            LongArrayBag bucket = buckets[bucket(seatsAvailable, seats)];
+            for (int i = 0; i < bucket.size(); i++) {
+                long carId = bucket.get(i);
+                carList.add(toCar(carId, cars.get(carId, MISSING)));
+            }
+        }
+        return carList;
+    }
+
+    @Override
+    public long size(int seatsAvailable) {
+        long size = 0;
+        for (int seats = seatsAvailable; seats <= Constants.MAX_SEATS; seats++) {
+            size += buckets[bucket(seatsAvailable, seats)].size();
+        }
+        return size;
+    }
+
+    /**
+     * Count the cars of the buckets of every seats available with at least those seats.
+     */
+    @Override
+    public long sizeWithSeats(int seats) {
+        long size = 0;
+        for (int available = 0; available <= Constants.MAX_SEATS; available++) {
+            for (int carSeats = Math.max(seats, available); carSeats <= Constants.MAX_SEATS; carSeats++) {
+                size += buckets[bucket(available, carSeats)].size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The new fleet is built in another store, and its index and buckets replace the
+     * current ones on commit.
+     */
+    @Override
+    public FleetLoader newLoader(int batchSize) {
+        InMemoryCarStore shadow = new InMemoryCarStore();
+        return new FleetLoader() {
+            @Override
+            public void add(Car car) {
+                shadow.insert(car.getId(), car.getSeats(), car.getAvailableSeats());
+            }
+
+            @Override
+            public void commit() {
+                cars = shadow.cars;
+                buckets = shadow.buckets;
+            }
+
+            @Override
+            public void abort() {
+                shadow.deleteAll();
+            }
+        };
+    }
+
+    @Override
+    public void deleteAll() {
+        cars.clear();
+        for (LongArrayBag bucket : buckets) {
+            bucket.clear();
+        }
+    }
+
+    @Override
+    public long totalSize() {
+        return cars.size();
+    }
+
+    @Override
+    public List<String> checkConsistency() {
+        List<String> errors = new ArrayList<>();
+        long bucketSize = 0;
+        for (int available = 0; available <= Constants.MAX_SEATS; available++) {
+            for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+                LongArrayBag bucket = buckets[bucket(available, seats)];
+                bucketSize += bucket.size();
+                for (int position = 0; position < bucket.size(); position++) {
+                    long carId = bucket.get(position);
+                    long packed = cars.get(carId, MISSING);
+                    if (packed == MISSING) {
+                        errors.add("Car ID " + carId + " in bucket " + available + "/" + seats + " is not indexed.");
+                    } else if (available(packed) != available || seats(packed) != seats || position(packed) != position) {
+                        errors.add("Car ID " + carId + " is in bucket " + available + "/" + seats + " at position "
+                                + position + " but indexed with " + available(packed) + "/" + seats(packed)
+                                + " seats at position " + position(packed) + ".");
+                    }
+                }
+            }
+        }
+        if (bucketSize != cars.size()) {
+            errors.add("The buckets have " + bucketSize + " cars but the index has " + cars.size() + ".");
+        }
+        return errors;
+    }
+
+    private void insert(long carId, int seats, int availableSeats) {
+        int position = buckets[bucket(availableSeats, seats)].add(carId);
+        cars.put(carId, pack(position, seats, availableSeats));
+    }
+
+    private void removeFromBucket(int bucketIndex, int position) {
+        LongArrayBag bucket = buckets[bucketIndex];
+        if (bucket.removeAt(position)) {
+            long movedId = bucket.get(position);
+            long movedPacked = cars.get(movedId, MISSING);
+            cars.put(movedId, pack(position, seats(movedPacked), available(movedPacked)));
+        }
+    }
+
+    private static int bucket(int availableSeats, int seats) {
+        return availableSeats * (Constants.MAX_SEATS + 1) + seats;
+    }
+
+    private static Car toCar(long carId, long packed) {
+        Car car = new Car(carId, seats(packed));
+        car.setAvailableSeats(available(packed));
+        return car;
+    }
+
+    private static long pack(int position, int seats, int availableSeats) {
+        return ((long) position << 16) | (seats << 8) | availableSeats;
+    }
+
+    private static int position(long packed) {
+        return (int) (packed >>> 16);
+    }
+
+    private static int seats(long packed) {
+        return (int) (packed >>> 8) & 0xFF;
+    }
+
+    private static int available(long packed) {
+        return (int) packed & 0xFF;
+    }
+}
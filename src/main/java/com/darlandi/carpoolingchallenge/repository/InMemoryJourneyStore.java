@@ -0,0 +1,117 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.utils.LongLongHashMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * In-process journey store, used with the in-memory car store.
+ * The journeys are a struct of arrays: parallel columns of journey IDs, car IDs and
+ * people indexed by slot, and an open addressing map from each journey ID to its slot,
+ * so a journey costs a few primitive cells instead of an object with boxed fields.
+ * The people cell also has a flag for the journeys with a car. A deleted slot is filled
+ * with the journey of the last slot, so the columns have no holes.
+ * It is not thread-safe, it is only used by the DispatchLoop thread.
+ */
+@Repository
+@ConditionalOnProperty(name = "carpooling.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryJourneyStore implements JourneyStore {
+    private static final int MIN_CAPACITY = 16;
+    private static final long MISSING = -1L;
+    private static final int ASSIGNED = 0x80;
+    private static final int PEOPLE = 0x7F;
+
+    private final LongLongHashMap slots = new LongLongHashMap();
+    private long[] journeyIds = new long[MIN_CAPACITY];
+    private long[] carIds = new long[MIN_CAPACITY];
+    private byte[] people = new byte[MIN_CAPACITY];
+    private int size;
+
+    @Override
+    public void create(Journey journey) {
+        if (!slots.containsKey(journey.getId())) {
+            write(append(journey.getId()), journey);
+        }
+    }
+
+    @Override
+    public Optional<Journey> get(long journeyId) {
+        int slot = (int) slots.get(journeyId, MISSING);
+        if (slot < 0) {
+            return Optional.empty();
+        }
+        Journey journey = new Journey(journeyId, people[slot] & PEOPLE);
+        if ((people[slot] & ASSIGNED) != 0) {
+            journey.setCarId(carIds[slot]);
+        }
+        return Optional.of(journey);
+    }
+
+    @Override
+    public void update(Journey journey) {
+        int slot = (int) slots.get(journey.getId(), MISSING);
+        write(slot < 0 ? append(journey.getId()) : slot, journey);
+    }
+
+    @Override
+    public void delete(long journeyId) {
+        int slot = (int) slots.get(journeyId, MISSING);
+        if (slot < 0) {
+            return;
+        }
+        slots.remove(journeyId);
+        int last = --size;
+        if (slot != last) {
+            journeyIds[slot] = journeyIds[last];
+            carIds[slot] = carIds[last];
+            people[slot] = people[last];
+            slots.put(journeyIds[slot], slot);
+        }
+    }
+
+    /**
+     * Iterate over all the journeys, in no particular order.
+     *
+     * @param consumer Journey consumer.
+     */
+    public void forEach(Consumer<Journey> consumer) {
+        for (int slot = 0; slot < size; slot++) {
+            consumer.accept(get(journeyIds[slot]).get());
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        slots.clear();
+        size = 0;
+    }
+
+    private int append(long journeyId) {
+        if (size == journeyIds.length) {
+            int capacity = journeyIds.length << 1;
+            journeyIds = Arrays.copyOf(journeyIds, capacity);
+            carIds = Arrays.copyOf(carIds, capacity);
+            people = Arrays.copyOf(people, capacity);
+        }
+        int slot = size++;
+        journeyIds[slot] = journeyId;
+        slots.put(journeyId, slot);
+        return slot;
+    }
+
+    private void write(int slot, Journey journey) {
+        Long carId = journey.getCarId();
+        carIds[slot] = carId == null ? 0 : carId;
+        people[slot] = (byte) (carId == null ? journey.getPeople() : journey.getPeople() | ASSIGNED);
+    }
+}
@@ -0,0 +1,180 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import com.darlandi.carpoolingchallenge.utils.LongLongHashMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-process waiting queue, the default engine.
+ * Every sub-queue is a doubly-linked list stored in primitive arrays: each node is a
+ * slot with the journey ID, its arrival sequence, the size of the group and the slots
+ * of the previous and next nodes, and each journey ID is mapped to its slot. Free
+ * slots are reused, so there are no node objects.
+ * It is not thread-safe, it is only used by the DispatchLoop thread.
+ */
+@Repository
+@ConditionalOnProperty(name = "carpooling.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryWaitingQueue implements WaitingQueue {
+    private static final int NONE = -1;
+
+    private final LongLongHashMap slots = new LongLongHashMap();
+    private final int[] heads = new int[Constants.MAX_PEOPLE + 1];
+    private final int[] tails = new int[Constants.MAX_PEOPLE + 1];
+    private final int[] counts = new int[Constants.MAX_PEOPLE + 1];
+    private long[] journeyIds = new long[16];
+    private long[] sequences = new long[16];
+    private byte[] people = new byte[16];
+    private int[] previous = new int[16];
+    private int[] next = new int[16];
+    private long tailSequence;
+    private long headSequence;
+    private int freeSlot = NONE;
+    private int usedSlots;
+
+    public InMemoryWaitingQueue() {
+        clear();
+    }
+
+    @Override
+    public void addLast(long journeyId, int people) {
+        remove(journeyId);
+        int slot = allocate(journeyId, ++tailSequence, people);
+        previous[slot] = tails[people];
+        next[slot] = NONE;
+        if (tails[people] == NONE) {
+            heads[people] = slot;
+        } else {
+            next[tails[people]] = slot;
+        }
+        tails[people] = slot;
+    }
+
+    @Override
+    public void addFirst(long journeyId, int people) {
+        remove(journeyId);
+        int slot = allocate(journeyId, --headSequence, people);
+        previous[slot] = NONE;
+        next[slot] = heads[people];
+        if (heads[people] == NONE) {
+            tails[people] = slot;
+        } else {
+            previous[heads[people]] = slot;
+        }
+        heads[people] = slot;
+    }
+
+    @Override
+    public Optional<Long> first() {
+        return firstFitting(Constants.MAX_PEOPLE);
+    }
+
+    @Override
+    public Optional<Long> firstFitting(int seatsAvailable) {
+        int oldest = NONE;
+        for (int size = Constants.MIN_PEOPLE; size <= Math.min(seatsAvailable, Constants.MAX_PEOPLE); size++) {
+            int slot = heads[size];
+            if (slot != NONE && (oldest == NONE || sequences[slot] < sequences[oldest])) {
+                oldest = slot;
+            }
+        }
+        return oldest == NONE ? Optional.empty() : Optional.of(journeyIds[oldest]);
+    }
+
+    @Override
+    public List<Long> getAll() {
+        List<Long> journeyList = new ArrayList<>(slots.size());
+        int[] cursors = Arrays.copyOf(heads, heads.length);
+        while (true) {
+            int oldest = NONE;
+            int oldestSize = NONE;
+            for (int size = Constants.MIN_PEOPLE; size <= Constants.MAX_PEOPLE; size++) {
+                int slot = cursors[size];
+                if (slot != NONE && (oldest == NONE || sequences[slot] < sequences[oldest])) {
+                    oldest = slot;
+                    oldestSize = size;
+                }
+            }
+            if (oldest == NONE) {
+                return journeyList;
+            }
+            journeyList.add(journeyIds[oldest]);
+            cursors[oldestSize] = next[oldest];
+        }
+    }
+
+    @Override
+    public boolean remove(long journeyId) {
+        int slot = (int) slots.get(journeyId, NONE);
+        if (slot == NONE) {
+            return false;
+        }
+        slots.remove(journeyId);
+        int size = people[slot];
+        counts[size]--;
+        if (previous[slot] == NONE) {
+            heads[size] = next[slot];
+        } else {
+            next[previous[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            tails[size] = previous[slot];
+        } else {
+            previous[next[slot]] = previous[slot];
+        }
+        next[slot] = freeSlot;
+        freeSlot = slot;
+        return true;
+    }
+
+    @Override
+    public long size() {
+        return slots.size();
+    }
+
+    @Override
+    public long size(int people) {
+        return people < Constants.MIN_PEOPLE || people > Constants.MAX_PEOPLE ? 0 : counts[people];
+    }
+
+    @Override
+    public void clear() {
+        slots.clear();
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+        Arrays.fill(counts, 0);
+        tailSequence = 0;
+        headSequence = 0;
+        freeSlot = NONE;
+        usedSlots = 0;
+    }
+
+    private int allocate(long journeyId, long sequence, int size) {
+        int slot;
+        if (freeSlot != NONE) {
+            slot = freeSlot;
+            freeSlot = next[slot];
+        } else {
+            if (usedSlots == journeyIds.length) {
+                int capacity = usedSlots << 1;
+                journeyIds = Arrays.copyOf(journeyIds, capacity);
+                sequences = Arrays.copyOf(sequences, capacity);
+                people = Arrays.copyOf(people, capacity);
+                previous = Arrays.copyOf(previous, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            slot = usedSlots++;
+        }
+        journeyIds[slot] = journeyId;
+        sequences[slot] = sequence;
+        people[slot] = (byte) size;
+        counts[size]++;
+        slots.put(journeyId, slot);
+        return slot;
+    }
+}
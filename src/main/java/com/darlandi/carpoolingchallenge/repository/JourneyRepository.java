@@ -1,31 +1,29 @@
 package com.darlandi.carpoolingchallenge.repository;
 
 import com.darlandi.carpoolingchallenge.entities.Journey;
-import org.springframework.data.redis.core.HashOperations;
-import org.springframework.data.redis.core.ListOperations;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
 
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
-import java.util.Set;
 
 /**
  * Journey Repository to store the journeys in DB.
- * Use HashOperations to save all the journeys in random order (very fast for reading)
- * Use ListOperations to keep the order of the journeys.
+ * Use the JourneyStore of the selected engine to save the journeys by ID, and the
+ * WaitingQueue to keep the order of the waiting journeys. Every change is also written
+ * to the DispatchJournal, if there is one.
  */
 @Repository
 public class JourneyRepository {
-    private static final String KEY = "JOURNEY";
-    private static final String KEY_LIST = "WAITING-LIST";
-    private final HashOperations hashOperations;
-    private final ListOperations listOperations;
-
-    public JourneyRepository(RedisTemplate redisTemplate) {
-        this.hashOperations = redisTemplate.opsForHash();
-        this.listOperations = redisTemplate.opsForList();
+    private final JourneyStore journeyStore;
+    private final WaitingQueue waitingQueue;
+    private final DispatchJournal journal;
+
+    public JourneyRepository(JourneyStore journeyStore, WaitingQueue waitingQueue,
+                             ObjectProvider<DispatchJournal> journal) {
+        this.journeyStore = journeyStore;
+        this.waitingQueue = waitingQueue;
+        this.journal = journal.getIfAvailable(() -> DispatchJournal.NONE);
     }
 
     /**
@@ -33,23 +31,52 @@ public class JourneyRepository {
      * @param journey Journey object.
      */
     public void create(Journey journey) {
-        hashOperations.putIfAbsent(KEY, journey.getId(), journey);
+        journeyStore.create(journey);
+        journal.registered(journey.getId(), journey.getPeople());
+    }
+
+    /**
+     * Save new journeys, with a single command in Redis.
+     * @param journeys List of journeys, not saved yet.
+     */
+    public void createAll(List<Journey> journeys) {
+        journeyStore.createAll(journeys);
+        for (Journey journey : journeys) {
+            journal.registered(journey.getId(), journey.getPeople());
+        }
     }
 
     /**
      * Add a journey ID to the waiting list.
      * @param journeyId ID of the journey.
+     * @param people Number of people of the journey.
      */
-    public void addToWaitingList(Long journeyId) {
-        listOperations.rightPush(KEY_LIST, journeyId);
+    public void addToWaitingList(Long journeyId, int people) {
+        waitingQueue.addLast(journeyId, people);
+        journal.waiting(journeyId, people, false);
+    }
+
+    /**
+     * Add the journeys to the waiting list, in the order of the list.
+     * @param journeys List of journeys.
+     */
+    public void addAllToWaitingList(List<Journey> journeys) {
+        if (!journeys.isEmpty()) {
+            waitingQueue.addAllLast(journeys);
+            for (Journey journey : journeys) {
+                journal.waiting(journey.getId(), journey.getPeople(), false);
+            }
+        }
     }
 
     /**
      * Add a journey ID to the top of the list.
      * @param journeyId ID of the journey.
+     * @param people Number of people of the journey.
      */
-    public void addTopWaitingList(Long journeyId) {
-        listOperations.leftPush(KEY_LIST, journeyId);
+    public void addTopWaitingList(Long journeyId, int people) {
+        waitingQueue.addFirst(journeyId, people);
+        journal.waiting(journeyId, people, true);
     }
 
     /**
@@ -58,12 +85,16 @@ public class JourneyRepository {
      * @return Optional Journey.
      */
     public Optional<Journey> get(Long journeyId) {
-        try {
-            Journey journey = (Journey) hashOperations.get(KEY, journeyId);
-            return Optional.of(journey);
-        } catch (Exception e) {
-            return Optional.empty();
-        }
+        return journeyStore.get(journeyId);
+    }
+
+    /**
+     * Get some journeys, with a single command in Redis.
+     * @param journeyIds List of journey IDs.
+     * @return List of Optional Journey, in the order of the IDs.
+     */
+    public List<Optional<Journey>> getAll(List<Long> journeyIds) {
+        return journeyStore.getAll(journeyIds);
     }
 
     /**
@@ -71,8 +102,24 @@ public class JourneyRepository {
      * @return Optional Journey.
      */
     public Optional<Journey> getFirstWaiting() {
-        Long journeyId = (Long) listOperations.index(KEY_LIST, 0);
-        return get(journeyId);
+        Optional<Long> journeyId = waitingQueue.first();
+        if (journeyId.isEmpty()) {
+            return Optional.empty();
+        }
+        return get(journeyId.get());
+    }
+
+    /**
+     * Get the first waiting journey that fits in the given seats.
+     * @param seatsAvailable Number of seats available.
+     * @return Optional Journey.
+     */
+    public Optional<Journey> getFirstWaitingFitting(int seatsAvailable) {
+        Optional<Long> journeyId = waitingQueue.firstFitting(seatsAvailable);
+        if (journeyId.isEmpty()) {
+            return Optional.empty();
+        }
+        return get(journeyId.get());
     }
 
     /**
@@ -80,11 +127,7 @@ public class JourneyRepository {
      * @return List of IDs.
      */
     public List<Long> getAllWaitingIds() {
-        List<Long> journeyList = new LinkedList<>();
-        for (int i = 0; i < listOperations.size(KEY_LIST); i++) {
-            journeyList.add((Long) listOperations.index(KEY_LIST, i));
-        }
-        return journeyList;
+        return waitingQueue.getAll();
     }
 
     /**
@@ -92,7 +135,23 @@ public class JourneyRepository {
      * @param journey object.
      */
     public void update(Journey journey) {
-        hashOperations.put(KEY, journey.getId(), journey);
+        journeyStore.update(journey);
+        if (journey.getCarId() != null) {
+            journal.assigned(journey.getId(), journey.getCarId());
+        }
+    }
+
+    /**
+     * Update already saved journeys, with a single command in Redis.
+     * @param journeys List of journeys.
+     */
+    public void updateAll(List<Journey> journeys) {
+        journeyStore.updateAll(journeys);
+        for (Journey journey : journeys) {
+            if (journey.getCarId() != null) {
+                journal.assigned(journey.getId(), journey.getCarId());
+            }
+        }
     }
 
     /**
@@ -100,7 +159,16 @@ public class JourneyRepository {
      * @return Number of waiting journeys.
      */
     public Long sizeWaitingList(){
-        return listOperations.size(KEY_LIST);
+        return waitingQueue.size();
+    }
+
+    /**
+     * Get the number of waiting journeys of a group size.
+     * @param people Number of people of the journeys.
+     * @return Number of waiting journeys.
+     */
+    public long sizeWaitingList(int people) {
+        return waitingQueue.size(people);
     }
 
     /**
@@ -108,7 +176,19 @@ public class JourneyRepository {
      * @param journeyId ID of the journey.
      */
     public void delete(Long journeyId) {
-        hashOperations.delete(KEY, journeyId);
+        journeyStore.delete(journeyId);
+        journal.dropped(journeyId);
+    }
+
+    /**
+     * Delete some journeys, with a single command in Redis.
+     * @param journeyIds List of journey IDs.
+     */
+    public void deleteAll(List<Long> journeyIds) {
+        journeyStore.deleteAll(journeyIds);
+        for (Long journeyId : journeyIds) {
+            journal.dropped(journeyId);
+        }
     }
 
 
@@ -117,30 +197,15 @@ public class JourneyRepository {
      * @param journeyId ID of the journey.
      */
     public void removeWaitingList(Long journeyId) {
-        for (int i = 0; i < listOperations.size(KEY_LIST); i++) {
-            Long id = (Long) listOperations.index(KEY_LIST, i);
-            if (id.equals(journeyId)) {
-                listOperations.remove(KEY_LIST, i, journeyId);
-                break;
-            }
-        }
+        waitingQueue.remove(journeyId);
     }
 
     /**
      * Clear all the journey and waiting journey lists.
      */
     public void deleteAll() {
-        if (hashOperations.size(KEY) > 0) {
-            Set<Long> journeyIdSet = hashOperations.keys(KEY);
-            for (Long journeyId : journeyIdSet) {
-                hashOperations.delete(KEY, journeyId);
-            }
-        }
-        if (listOperations.size(KEY_LIST) > 0) {
-            List<Long> journeyIdSet = listOperations.range(KEY_LIST, 0, listOperations.size(KEY_LIST));
-            for (Long journeyId : journeyIdSet) {
-                removeWaitingList(journeyId);
-            }
-        }
+        journeyStore.clear();
+        waitingQueue.clear();
+        journal.cleared();
     }
 }
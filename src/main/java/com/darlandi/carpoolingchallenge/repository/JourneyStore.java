@@ -0,0 +1,103 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Journey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage engine for the journeys, by ID. The batch operations are single commands
+ * when the engine is remote.
+ * The engine is selected with the "carpooling.store" property.
+ */
+public interface JourneyStore {
+
+    /**
+     * Save a journey, if it is not already saved.
+     *
+     * @param journey Journey object.
+     */
+    void create(Journey journey);
+
+    /**
+     * Save new journeys.
+     *
+     * @param journeys List of journeys, not saved yet.
+     */
+    default void createAll(List<Journey> journeys) {
+        for (Journey journey : journeys) {
+            create(journey);
+        }
+    }
+
+    /**
+     * Get a journey given its ID.
+     *
+     * @param journeyId ID of the journey.
+     * @return Optional Journey.
+     */
+    Optional<Journey> get(long journeyId);
+
+    /**
+     * Get some journeys given their IDs.
+     *
+     * @param journeyIds List of journey IDs.
+     * @return List of Optional Journey, in the order of the IDs.
+     */
+    default List<Optional<Journey>> getAll(List<Long> journeyIds) {
+        List<Optional<Journey>> journeys = new ArrayList<>(journeyIds.size());
+        for (long journeyId : journeyIds) {
+            journeys.add(get(journeyId));
+        }
+        return journeys;
+    }
+
+    /**
+     * Save a journey, replacing the saved one.
+     *
+     * @param journey Journey object.
+     */
+    void update(Journey journey);
+
+    /**
+     * Save some journeys, replacing the saved ones.
+     *
+     * @param journeys List of journeys.
+     */
+    default void updateAll(List<Journey> journeys) {
+        for (Journey journey : journeys) {
+            update(journey);
+        }
+    }
+
+    /**
+     * Delete a journey.
+     *
+     * @param journeyId ID of the journey.
+     */
+    void delete(long journeyId);
+
+    /**
+     * Delete some journeys.
+     *
+     * @param journeyIds List of journey IDs.
+     */
+    default void deleteAll(List<Long> journeyIds) {
+        for (long journeyId : journeyIds) {
+            delete(journeyId);
+        }
+    }
+
+    /**
+     * Number of journeys saved.
+     *
+     * @return Number of journeys.
+     */
+    long size();
+
+    /**
+     * Delete all the journeys.
+     */
+    void clear();
+}
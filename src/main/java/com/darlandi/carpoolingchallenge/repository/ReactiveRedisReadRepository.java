@@ -0,0 +1,49 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking reads of the journeys and cars saved in Redis, for the reactive handlers.
+ * The assignments and drop-offs are single Lua scripts, so a read never sees a journey
+ * bound to a car that has not been updated yet and it does not need the DispatchLoop.
+ * Only with the Redis store: the in-memory cars can only be read by the dispatch thread.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnProperty(name = "carpooling.store", havingValue = "redis")
+public class ReactiveRedisReadRepository {
+    private final ReactiveHashOperations<String, byte[], byte[]> hashOperations;
+
+    public ReactiveRedisReadRepository(ReactiveRedisTemplate<String, byte[]> reactiveRedisTemplate) {
+        this.hashOperations = reactiveRedisTemplate.opsForHash();
+    }
+
+    /**
+     * Get a journey given its id.
+     *
+     * @param journeyId ID of the journey.
+     * @return Mono Journey, empty if the journey is not found.
+     */
+    public Mono<Journey> getJourney(long journeyId) {
+        return hashOperations.get(RedisKeys.JOURNEY, RedisCodec.encodeId(journeyId))
+                .map(value -> RedisCodec.decodeJourney(journeyId, value));
+    }
+
+    /**
+     * Get a car given its id.
+     *
+     * @param carId ID of the car.
+     * @return Mono Car, empty if the car is not found.
+     */
+    public Mono<Car> getCar(long carId) {
+        return hashOperations.get(RedisKeys.CAR_INDEX, RedisCodec.encodeId(carId))
+                .map(value -> RedisCodec.decodeCar(carId, value));
+    }
+}
@@ -0,0 +1,262 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Car store backed by Redis, shared by all the instances of the service.
+ * Save the IDs of the cars into sorted sets depending on the available seats (scored
+ * by the total seats, so a car of a given size is a ZRANGEBYSCORE), and keep an index hash (car ID -> seats, availableSeats) so a car
+ * is found with only one round-trip. The buckets and the index are always written in
+ * the same MULTI/EXEC transaction, or by the Lua scripts of RedisScriptDispatchOperations.
+ * A new fleet is loaded in shadow keys and swapped in with RENAME, and the old one is
+ * retired by RedisGenerations.
+ */
+@Repository
+@ConditionalOnProperty(name = "carpooling.store", havingValue = "redis")
+public class RedisCarStore implements CarStore {
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final RedisGenerations generations;
+    private final HashOperations<String, byte[], byte[]> hashOperations;
+    private final ZSetOperations<String, byte[]> zSetOperations;
+
+    public RedisCarStore(RedisTemplate<String, byte[]> redisTemplate, RedisGenerations generations) {
+        this.redisTemplate = redisTemplate;
+        this.generations = generations;
+        this.hashOperations = redisTemplate.opsForHash();
+        this.zSetOperations = redisTemplate.opsForZSet();
+    }
+
+    @Override
+    public void create(Car car) {
+        byte[] carId = RedisCodec.encodeId(car.getId());
+        RedisSessions.transaction(redisTemplate, operations -> {
+            operations.opsForHash().putIfAbsent(RedisKeys.CAR_INDEX, carId, RedisCodec.encodeCar(car));
+            operations.opsForZSet().add(RedisKeys.carSeats(car.getAvailableSeats()), carId, car.getSeats());
+        });
+    }
+
+    @Override
+    public void update(int availableSeats, Car car) {
+        byte[] carId = RedisCodec.encodeId(car.getId());
+        int oldSeats = car.getAvailableSeats();
+        car.setAvailableSeats(availableSeats);
+        RedisSessions.transaction(redisTemplate, operations -> {
+            operations.opsForZSet().remove(RedisKeys.carSeats(oldSeats), carId);
+            operations.opsForZSet().add(RedisKeys.carSeats(availableSeats), carId, car.getSeats());
+            operations.opsForHash().put(RedisKeys.CAR_INDEX, carId, RedisCodec.encodeCar(car));
+        });
+    }
+
+    @Override
+    public Optional<Car> getCarSeatsAvailable(int seatsAvailable) {
+        Set<byte[]> first = zSetOperations.range(RedisKeys.carSeats(seatsAvailable), 0, 0);
+        if (first == null || first.isEmpty()) {
+            return Optional.empty();
+        }
+        return get(RedisCodec.decodeId(first.iterator().next()));
+    }
+
+    @Override
+    public Optional<Car> getCar(int seatsAvailable, int seats) {
+        Set<byte[]> first = zSetOperations.rangeByScore(RedisKeys.carSeats(seatsAvailable), seats, seats, 0, 1);
+        if (first == null || first.isEmpty()) {
+            return Optional.empty();
+        }
+        return get(RedisCodec.decodeId(first.iterator().next()));
+    }
+
+    @Override
+    public int maxSeatsAvailable() {
+        List<Object> sizes = RedisSessions.pipelined(redisTemplate, operations -> {
+            for (int seats = 1; seats <= Constants.MAX_SEATS; seats++) {
+                operations.opsForZSet().zCard(RedisKeys.carSeats(seats));
+            }
+        });
+        for (int seats = Constants.MAX_SEATS; seats > 0; seats--) {
+            if ((Long) sizes.get(seats - 1) > 0) {
+                return seats;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public Optional<Car> get(long carId) {
+        byte[] value = hashOperations.get(RedisKeys.CAR_INDEX, RedisCodec.encodeId(carId));
+        return value == null ? Optional.empty() : Optional.of(RedisCodec.decodeCar(carId, value));
+    }
+
+    @Override
+    public List<Car> getAll(int seatsAvailable) {
+        Set<byte[]> carIdSet = zSetOperations.range(RedisKeys.carSeats(seatsAvailable), 0, -1);
+        List<Car> carList = new ArrayList<>();
+        if (carIdSet == null || carIdSet.isEmpty()) {
+            return carList;
+        }
+        List<byte[]> carIds = new ArrayList<>(carIdSet);
+        List<byte[]> values = hashOperations.multiGet(RedisKeys.CAR_INDEX, carIds);
+        for (int i = 0; i < carIds.size(); i++) {
+            if (values.get(i) != null) {
+                carList.add(RedisCodec.decodeCar(RedisCodec.decodeId(carIds.get(i)), values.get(i)));
+            }
+        }
+        return carList;
+    }
+
+    @Override
+    public long size(int seatsAvailable) {
+        Long size = zSetOperations.zCard(RedisKeys.carSeats(seatsAvailable));
+        return size == null ? 0 : size;
+    }
+
+    /**
+     * Count the cars of every bucket scored with the seats or more, in one round-trip.
+     */
+    @Override
+    public long sizeWithSeats(int seats) {
+        List<Object> sizes = RedisSessions.pipelined(redisTemplate, operations -> {
+            for (int available = 0; available <= Constants.MAX_SEATS; available++) {
+                operations.opsForZSet().count(RedisKeys.carSeats(available), seats, Double.POSITIVE_INFINITY);
+            }
+        });
+        return sizes.stream().mapToLong(size -> (Long) size).sum();
+    }
+
+    @Override
+    public FleetLoader newLoader(int batchSize) {
+        return new ShadowLoader(batchSize);
+    }
+
+    @Override
+    public void deleteAll() {
+        generations.retire(carKeys());
+    }
+
+    @Override
+    public long totalSize() {
+        return hashOperations.size(RedisKeys.CAR_INDEX);
+    }
+
+    @Override
+    public List<String> checkConsistency() {
+        List<String> errors = new ArrayList<>();
+        Map<Long, Car> index = new HashMap<>();
+        hashOperations.entries(RedisKeys.CAR_INDEX).forEach((carId, value) -> {
+            long id = RedisCodec.decodeId(carId);
+            index.put(id, RedisCodec.decodeCar(id, value));
+        });
+        long bucketSize = 0;
+        for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+            Set<byte[]> bucket = zSetOperations.range(RedisKeys.carSeats(seats), 0, -1);
+            bucketSize += bucket.size();
+            for (byte[] member : bucket) {
+                long carId = RedisCodec.decodeId(member);
+                Car indexed = index.get(carId);
+                if (indexed == null) {
+                    errors.add("Car ID " + carId + " in bucket " + seats + " is not indexed.");
+                } else if (indexed.getAvailableSeats() != seats) {
+                    errors.add("Car ID " + carId + " is in bucket " + seats + " but indexed with "
+                            + indexed.getAvailableSeats() + " seats available.");
+                }
+            }
+        }
+        if (bucketSize != index.size()) {
+            errors.add("The buckets have " + bucketSize + " cars but the index has " + index.size() + ".");
+        }
+        return errors;
+    }
+
+    /**
+     * The car index and the buckets from 0 to MAX_SEATS seats available.
+     */
+    private static List<String> carKeys() {
+        List<String> keys = new ArrayList<>();
+        keys.add(RedisKeys.CAR_INDEX);
+        for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+            keys.add(RedisKeys.carSeats(seats));
+        }
+        return keys;
+    }
+
+    /**
+     * Build the new fleet in shadow keys, writing every batch of cars in one pipelined
+     * round-trip (one HMSET for the index and one ZADD per bucket). On commit the current
+     * keys are retired and replaced with the shadow keys by a single script.
+     */
+    private class ShadowLoader implements FleetLoader {
+        private final int batchSize;
+        private final Map<byte[], byte[]> index = new HashMap<>();
+        private final List<Set<TypedTuple<byte[]>>> buckets = new ArrayList<>();
+
+        ShadowLoader(int batchSize) {
+            this.batchSize = Math.max(1, batchSize);
+            for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+                buckets.add(new HashSet<>());
+            }
+            abort();
+        }
+
+        @Override
+        public void add(Car car) {
+            byte[] carId = RedisCodec.encodeId(car.getId());
+            index.put(carId, RedisCodec.encodeCar(car));
+            buckets.get(car.getAvailableSeats()).add(new DefaultTypedTuple<>(carId, (double) car.getSeats()));
+            if (index.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void commit() {
+            flush();
+            generations.replace(carKeys(), shadowKeys());
+        }
+
+        @Override
+        public void abort() {
+            generations.retire(shadowKeys());
+        }
+
+        private List<String> shadowKeys() {
+            List<String> keys = new ArrayList<>();
+            for (String key : carKeys()) {
+                keys.add(RedisKeys.shadow(key));
+            }
+            return keys;
+        }
+
+        private void flush() {
+            if (index.isEmpty()) {
+                return;
+            }
+            RedisSessions.pipelined(redisTemplate, operations -> {
+                operations.opsForHash().putAll(RedisKeys.shadow(RedisKeys.CAR_INDEX), index);
+                for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+                    if (!buckets.get(seats).isEmpty()) {
+                        operations.opsForZSet().add(RedisKeys.shadow(RedisKeys.carSeats(seats)), buckets.get(seats));
+                    }
+                }
+            });
+            index.clear();
+            for (Set<TypedTuple<byte[]>> bucket : buckets) {
+                bucket.clear();
+            }
+        }
+    }
+}
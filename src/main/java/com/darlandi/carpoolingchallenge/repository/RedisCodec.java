@@ -0,0 +1,114 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary format of the IDs, cars and journeys saved in Redis, compact and readable by
+ * the Lua scripts.
+ * An ID is a ZigZag varint (1 to 3 bytes for a fleet of 10⁵ cars), used as hash field
+ * and sorted set member. A car is saved as 2 bytes: seats and available seats.
+ * A journey is saved as 1 byte with its people while it is waiting, followed by the
+ * car ID once it has a car.
+ */
+final class RedisCodec {
+    private static final int MAX_VARINT_BYTES = 10;
+
+    private RedisCodec() {
+    }
+
+    static byte[] encodeId(long id) {
+        byte[] buffer = new byte[MAX_VARINT_BYTES];
+        int length = writeVarLong(buffer, 0, id);
+        byte[] bytes = new byte[length];
+        System.arraycopy(buffer, 0, bytes, 0, length);
+        return bytes;
+    }
+
+    static long decodeId(byte[] bytes) {
+        return readVarLong(bytes, 0);
+    }
+
+    static byte[] encodeCar(Car car) {
+        return new byte[]{(byte) car.getSeats(), (byte) car.getAvailableSeats()};
+    }
+
+    static Car decodeCar(long carId, byte[] value) {
+        return decodeCar(carId, value, 0);
+    }
+
+    /**
+     * Decode the replies of the scripts: the car ID followed by the car.
+     */
+    static Car decodeAssignedCar(byte[] value) {
+        long carId = readVarLong(value, 0);
+        return decodeCar(carId, value, varLongSize(carId));
+    }
+
+    static byte[] encodeJourney(Journey journey) {
+        if (journey.getCarId() == null) {
+            return new byte[]{(byte) journey.getPeople()};
+        }
+        byte[] bytes = new byte[1 + MAX_VARINT_BYTES];
+        bytes[0] = (byte) journey.getPeople();
+        int length = writeVarLong(bytes, 1, journey.getCarId());
+        byte[] trimmed = new byte[length];
+        System.arraycopy(bytes, 0, trimmed, 0, length);
+        return trimmed;
+    }
+
+    static Journey decodeJourney(long journeyId, byte[] value) {
+        Journey journey = new Journey(journeyId, (int) value[0]);
+        if (value.length > 1) {
+            journey.setCarId(readVarLong(value, 1));
+        }
+        return journey;
+    }
+
+    /**
+     * Arguments of the scripts, which read them as numbers.
+     */
+    static byte[] encodeNumber(long number) {
+        return String.valueOf(number).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static Car decodeCar(long carId, byte[] value, int offset) {
+        Car car = new Car(carId, (int) value[offset]);
+        car.setAvailableSeats((int) value[offset + 1]);
+        return car;
+    }
+
+    private static int writeVarLong(byte[] buffer, int offset, long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            buffer[offset++] = (byte) ((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        buffer[offset++] = (byte) zigZag;
+        return offset;
+    }
+
+    private static long readVarLong(byte[] buffer, int offset) {
+        long zigZag = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = buffer[offset++];
+            zigZag |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static int varLongSize(long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        int size = 1;
+        while ((zigZag & ~0x7FL) != 0) {
+            zigZag >>>= 7;
+            size++;
+        }
+        return size;
+    }
+}
@@ -0,0 +1,162 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Reset of Redis keys in O(1). The current generation of the keys is renamed under a
+ * "GEN:n:" prefix by a Lua script, so the live keys are empty at once for every instance,
+ * and a background reaper frees the retired keys afterwards.
+ * The reaper uses UNLINK when the server supports it (Redis 4+). Otherwise it empties
+ * the big hashes and sorted sets in small batches, so Redis is never blocked for long.
+ */
+@Component
+public class RedisGenerations {
+    private static final Logger logger = LoggerFactory.getLogger(RedisGenerations.class);
+    private static final String KEY_GENERATION = "GENERATION";
+    private static final String RETIRED_PATTERN = "GEN:*";
+    private static final RedisSerializer<String> STRING = RedisSerializer.string();
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final RedisScript<?> retireScript;
+    private final int batchSize;
+    private final ExecutorService reaper;
+    private boolean unlinkSupported;
+
+    public RedisGenerations(RedisTemplate<String, byte[]> redisTemplate,
+                            @Value("${carpooling.reaper.batch-size:1000}") int batchSize) {
+        this.redisTemplate = redisTemplate;
+        this.retireScript = RedisScripts.script(List.class, "retire.lua");
+        this.batchSize = Math.max(1, batchSize);
+        this.reaper = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "keyspace-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Load the script, check if UNLINK is available and reap the generations retired
+     * before the last restart.
+     */
+    @PostConstruct
+    public void start() {
+        RedisScripts.load(redisTemplate, retireScript);
+        Properties info = redisTemplate.execute((RedisCallback<Properties>) connection -> connection.serverCommands().info("server"));
+        String version = info == null ? null : info.getProperty("redis_version");
+        unlinkSupported = version != null && Integer.parseInt(version.substring(0, version.indexOf('.'))) >= 4;
+        reaper.execute(this::reapLeftovers);
+    }
+
+    @PreDestroy
+    public void stop() {
+        reaper.shutdownNow();
+    }
+
+    /**
+     * Retire the keys in one round-trip, they are empty after this call.
+     *
+     * @param keys Live keys.
+     */
+    public void retire(List<String> keys) {
+        replace(keys, Collections.emptyList());
+    }
+
+    /**
+     * Retire the keys and replace each of them with the given key, if it exists.
+     *
+     * @param keys         Live keys.
+     * @param replacements Keys renamed over the live keys, in the same order.
+     */
+    public void replace(List<String> keys, List<String> replacements) {
+        List<String> scriptKeys = new ArrayList<>(keys.size() + replacements.size() + 1);
+        scriptKeys.add(KEY_GENERATION);
+        scriptKeys.addAll(keys);
+        scriptKeys.addAll(replacements);
+        List<String> retired = executeRetire(scriptKeys, keys.size());
+        if (retired != null && !retired.isEmpty()) {
+            reaper.execute(() -> reap(retired));
+        }
+    }
+
+    /**
+     * Run the retire script with the keys and their names as strings. The result
+     * serializer reads every element of the list returned, so the types of the script and
+     * of the serializer can't match for RedisTemplate.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private List<String> executeRetire(List<String> scriptKeys, int liveKeys) {
+        return (List<String>) redisTemplate.execute((RedisScript) retireScript, STRING, (RedisSerializer) STRING,
+                scriptKeys, String.valueOf(liveKeys));
+    }
+
+    private void reapLeftovers() {
+        List<String> leftovers = new ArrayList<>();
+        try (Cursor<String> cursor = redisTemplate.scan(ScanOptions.scanOptions().match(RETIRED_PATTERN).count(batchSize).build())) {
+            cursor.forEachRemaining(leftovers::add);
+        }
+        reap(leftovers);
+    }
+
+    private void reap(List<String> keys) {
+        try {
+            if (unlinkSupported) {
+                redisTemplate.unlink(keys);
+                return;
+            }
+            for (String key : keys) {
+                empty(key);
+            }
+            redisTemplate.delete(keys);
+        } catch (RuntimeException e) {
+            logger.warn("Error reaping the retired keys {}", keys, e);
+        }
+    }
+
+    /**
+     * Remove the content of a big key in batches before deleting it.
+     */
+    private void empty(String key) {
+        switch (redisTemplate.type(key)) {
+            case ZSET:
+                while (redisTemplate.opsForZSet().removeRange(key, 0, batchSize - 1) > 0) {
+                    Thread.yield();
+                }
+                break;
+            case HASH:
+                List<Object> fields = new ArrayList<>(batchSize);
+                try (Cursor<Map.Entry<Object, Object>> cursor = redisTemplate.opsForHash().scan(key, ScanOptions.scanOptions().count(batchSize).build())) {
+                    while (cursor.hasNext()) {
+                        fields.add(cursor.next().getKey());
+                        if (fields.size() == batchSize) {
+                            redisTemplate.opsForHash().delete(key, fields.toArray());
+                            fields.clear();
+                        }
+                    }
+                }
+                if (!fields.isEmpty()) {
+                    redisTemplate.opsForHash().delete(key, fields.toArray());
+                }
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Journey store backed by Redis, shared by all the instances of the service.
+ * Use HashOperations to save all the journeys in random order (very fast for reading),
+ * encoded in a compact binary format that the Lua scripts can read and update.
+ */
+@Repository
+@ConditionalOnProperty(name = "carpooling.store", havingValue = "redis")
+public class RedisJourneyStore implements JourneyStore {
+    private static final String KEY = RedisKeys.JOURNEY;
+    private final RedisGenerations generations;
+    private final HashOperations<String, byte[], byte[]> hashOperations;
+
+    public RedisJourneyStore(RedisTemplate<String, byte[]> redisTemplate, RedisGenerations generations) {
+        this.generations = generations;
+        this.hashOperations = redisTemplate.opsForHash();
+    }
+
+    @Override
+    public void create(Journey journey) {
+        hashOperations.putIfAbsent(KEY, RedisCodec.encodeId(journey.getId()), RedisCodec.encodeJourney(journey));
+    }
+
+    @Override
+    public void createAll(List<Journey> journeys) {
+        if (!journeys.isEmpty()) {
+            hashOperations.putAll(KEY, encode(journeys));
+        }
+    }
+
+    @Override
+    public Optional<Journey> get(long journeyId) {
+        byte[] value = hashOperations.get(KEY, RedisCodec.encodeId(journeyId));
+        return value == null ? Optional.empty() : Optional.of(RedisCodec.decodeJourney(journeyId, value));
+    }
+
+    @Override
+    public List<Optional<Journey>> getAll(List<Long> journeyIds) {
+        List<Optional<Journey>> journeys = new ArrayList<>(journeyIds.size());
+        if (journeyIds.isEmpty()) {
+            return journeys;
+        }
+        List<byte[]> keys = new ArrayList<>(journeyIds.size());
+        for (long journeyId : journeyIds) {
+            keys.add(RedisCodec.encodeId(journeyId));
+        }
+        List<byte[]> values = hashOperations.multiGet(KEY, keys);
+        for (int i = 0; i < journeyIds.size(); i++) {
+            byte[] value = values.get(i);
+            journeys.add(value == null ? Optional.empty() : Optional.of(RedisCodec.decodeJourney(journeyIds.get(i), value)));
+        }
+        return journeys;
+    }
+
+    @Override
+    public void update(Journey journey) {
+        hashOperations.put(KEY, RedisCodec.encodeId(journey.getId()), RedisCodec.encodeJourney(journey));
+    }
+
+    @Override
+    public void updateAll(List<Journey> journeys) {
+        if (!journeys.isEmpty()) {
+            hashOperations.putAll(KEY, encode(journeys));
+        }
+    }
+
+    @Override
+    public void delete(long journeyId) {
+        hashOperations.delete(KEY, (Object) RedisCodec.encodeId(journeyId));
+    }
+
+    @Override
+    public void deleteAll(List<Long> journeyIds) {
+        if (journeyIds.isEmpty()) {
+            return;
+        }
+        Object[] keys = new Object[journeyIds.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = RedisCodec.encodeId(journeyIds.get(i));
+        }
+        hashOperations.delete(KEY, keys);
+    }
+
+    @Override
+    public long size() {
+        return hashOperations.size(KEY);
+    }
+
+    @Override
+    public void clear() {
+        generations.retire(List.of(KEY));
+    }
+
+    private static Map<byte[], byte[]> encode(List<Journey> journeys) {
+        Map<byte[], byte[]> values = new LinkedHashMap<>();
+        for (Journey journey : journeys) {
+            values.put(RedisCodec.encodeId(journey.getId()), RedisCodec.encodeJourney(journey));
+        }
+        return values;
+    }
+}
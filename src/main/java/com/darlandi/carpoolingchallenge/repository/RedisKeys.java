@@ -0,0 +1,38 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+/**
+ * Names of the Redis keys. They are shared by the stores and the Lua scripts, which
+ * receive them in the same order as listed here.
+ */
+final class RedisKeys {
+    static final String CAR_INDEX = "CAR-INDEX";
+    static final String JOURNEY = "JOURNEY";
+    static final String WAITING_LIST_TAIL = "WAITING-LIST-TAIL";
+    static final String WAITING_LIST_HEAD = "WAITING-LIST-HEAD";
+    private static final String CAR_SEATS = "CAR-SEATS:";
+    private static final String WAITING_LIST = "WAITING-LIST:";
+
+    private RedisKeys() {
+    }
+
+    /**
+     * Sorted set with the IDs of the cars with the given seats available.
+     */
+    static String carSeats(int seatsAvailable) {
+        return CAR_SEATS + seatsAvailable;
+    }
+
+    /**
+     * Key where a new version of the given key is built before replacing it.
+     */
+    static String shadow(String key) {
+        return key + ":LOADING";
+    }
+
+    /**
+     * Sorted set with the IDs of the waiting journeys of the given size.
+     */
+    static String waitingList(int people) {
+        return WAITING_LIST + people;
+    }
+}
@@ -0,0 +1,176 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.strategy.CarClass;
+import com.darlandi.carpoolingchallenge.strategy.SeatAssignmentStrategy;
+import com.darlandi.carpoolingchallenge.strategy.WaitingDemand;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Dispatch operations run as Lua scripts, so Redis applies every step of an assignment
+ * or a drop off atomically and in one round-trip, even with several instances of the
+ * service sharing the same Redis. The scripts are loaded at startup and called by SHA.
+ * The scripts of a batch are pipelined: Redis still runs them one by one in order, so
+ * each journey sees the cars left by the previous ones, in a single round-trip.
+ * The classes of car to try are chosen by the SeatAssignmentStrategy before calling the
+ * script, and passed as pairs of bytes (seats available, seats). If the strategy reads
+ * the waiting list, the sizes of the sub-queues are read once per call or batch.
+ */
+@Repository
+@ConditionalOnProperty(name = "carpooling.store", havingValue = "redis")
+public class RedisScriptDispatchOperations implements DispatchOperations {
+    private static final Logger logger = LoggerFactory.getLogger(RedisScriptDispatchOperations.class);
+    private static final byte[] MAX_SEATS = RedisCodec.encodeNumber(Constants.MAX_SEATS);
+    private static final byte[] MIN_PEOPLE = RedisCodec.encodeNumber(Constants.MIN_PEOPLE);
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final RedisScript<byte[]> assignScript;
+    private final RedisScript<Long> dropOffScript;
+    private final List<String> keys;
+    private final SeatAssignmentStrategy strategy;
+
+    public RedisScriptDispatchOperations(RedisTemplate<String, byte[]> redisTemplate, SeatAssignmentStrategy strategy) {
+        this.redisTemplate = redisTemplate;
+        this.strategy = strategy;
+        this.assignScript = RedisScripts.script(byte[].class, "keys.lua", "assign.lua");
+        this.dropOffScript = RedisScripts.script(Long.class, "keys.lua", "dropoff.lua");
+        this.keys = scriptKeys();
+    }
+
+    /**
+     * Load the scripts in Redis, so the first calls do not send the whole script.
+     */
+    @PostConstruct
+    public void loadScripts() {
+        RedisScripts.load(redisTemplate, assignScript, dropOffScript);
+        logger.info("Dispatch scripts loaded: assign {}, drop off {}", assignScript.getSha1(), dropOffScript.getSha1());
+    }
+
+    @Override
+    public Optional<Car> assign(Journey journey) {
+        byte[] assigned = redisTemplate.execute(assignScript, keys, MAX_SEATS, MIN_PEOPLE, RedisCodec.encodeId(journey.getId()),
+                candidates(journey, waitingDemand()));
+        if (assigned == null) {
+            return Optional.empty();
+        }
+        Car car = RedisCodec.decodeAssignedCar(assigned);
+        journey.setCarId(car.getId());
+        return Optional.of(car);
+    }
+
+    @Override
+    public DropOffStatus dropOff(long journeyId) {
+        return toDropOffStatus(redisTemplate.execute(dropOffScript, keys, MAX_SEATS, MIN_PEOPLE, RedisCodec.encodeId(journeyId)));
+    }
+
+    @Override
+    public List<Optional<Car>> assignAll(List<Journey> journeys) {
+        WaitingDemand waiting = waitingDemand();
+        List<byte[]> candidates = new ArrayList<>(journeys.size());
+        for (Journey journey : journeys) {
+            candidates.add(candidates(journey, waiting));
+        }
+        List<Object> results = RedisSessions.pipelined(redisTemplate, operations -> {
+            for (int i = 0; i < journeys.size(); i++) {
+                operations.execute(assignScript, keys, MAX_SEATS, MIN_PEOPLE,
+                        RedisCodec.encodeId(journeys.get(i).getId()), candidates.get(i));
+            }
+        });
+        List<Optional<Car>> cars = new ArrayList<>(journeys.size());
+        for (int i = 0; i < journeys.size(); i++) {
+            byte[] assigned = (byte[]) results.get(i);
+            if (assigned == null) {
+                cars.add(Optional.empty());
+            } else {
+                Car car = RedisCodec.decodeAssignedCar(assigned);
+                journeys.get(i).setCarId(car.getId());
+                cars.add(Optional.of(car));
+            }
+        }
+        return cars;
+    }
+
+    @Override
+    public List<DropOffStatus> dropOffAll(List<Long> journeyIds) {
+        List<Object> results = RedisSessions.pipelined(redisTemplate, operations -> {
+            for (long journeyId : journeyIds) {
+                operations.execute(dropOffScript, keys, MAX_SEATS, MIN_PEOPLE, RedisCodec.encodeId(journeyId));
+            }
+        });
+        List<DropOffStatus> statuses = new ArrayList<>(journeyIds.size());
+        for (Object status : results) {
+            statuses.add(toDropOffStatus((Long) status));
+        }
+        return statuses;
+    }
+
+    /**
+     * Classes of car to try for the journey, encoded as pairs of bytes for assign.lua.
+     */
+    private byte[] candidates(Journey journey, WaitingDemand waiting) {
+        List<CarClass> classes = strategy.candidates(journey.getPeople(), waiting);
+        byte[] candidates = new byte[classes.size() * 2];
+        for (int i = 0; i < classes.size(); i++) {
+            candidates[2 * i] = (byte) classes.get(i).getSeatsAvailable();
+            candidates[2 * i + 1] = (byte) classes.get(i).getSeats();
+        }
+        return candidates;
+    }
+
+    /**
+     * Sizes of the waiting sub-queues, read in one pipelined round-trip the first time the
+     * strategy asks for them.
+     */
+    private WaitingDemand waitingDemand() {
+        List<Object> sizes = new ArrayList<>();
+        return people -> {
+            if (sizes.isEmpty()) {
+                sizes.addAll(RedisSessions.pipelined(redisTemplate, operations -> {
+                    for (int size = Constants.MIN_PEOPLE; size <= Constants.MAX_PEOPLE; size++) {
+                        operations.opsForZSet().zCard(RedisKeys.waitingList(size));
+                    }
+                }));
+            }
+            if (people < Constants.MIN_PEOPLE || people > Constants.MAX_PEOPLE) {
+                return 0;
+            }
+            return (Long) sizes.get(people - Constants.MIN_PEOPLE);
+        };
+    }
+
+    private static DropOffStatus toDropOffStatus(Long status) {
+        if (status == null || status == 0) {
+            return DropOffStatus.JOURNEY_NOT_FOUND;
+        }
+        return status > 0 ? DropOffStatus.DROPPED : DropOffStatus.CAR_NOT_FOUND;
+    }
+
+    /**
+     * Keys of the scripts, in the order expected by keys.lua: the car index, the journeys, the car buckets from 0 to MAX_SEATS
+     * seats available, and the waiting sub-queues from MIN_PEOPLE to MAX_PEOPLE.
+     */
+    private static List<String> scriptKeys() {
+        List<String> keys = new ArrayList<>();
+        keys.add(RedisKeys.CAR_INDEX);
+        keys.add(RedisKeys.JOURNEY);
+        for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+            keys.add(RedisKeys.carSeats(seats));
+        }
+        for (int people = Constants.MIN_PEOPLE; people <= Constants.MAX_PEOPLE; people++) {
+            keys.add(RedisKeys.waitingList(people));
+        }
+        return Collections.unmodifiableList(keys);
+    }
+}
@@ -0,0 +1,52 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lua scripts saved in the "scripts" directory of the classpath.
+ */
+final class RedisScripts {
+
+    private RedisScripts() {
+    }
+
+    /**
+     * Build a script joining the given files.
+     */
+    static <T> RedisScript<T> script(Class<T> resultType, String... names) {
+        StringBuilder source = new StringBuilder();
+        for (String name : names) {
+            source.append(read(name));
+        }
+        return new DefaultRedisScript<>(source.toString(), resultType);
+    }
+
+    /**
+     * Load the scripts in Redis, so the first calls do not send the whole script.
+     */
+    static void load(RedisTemplate<String, byte[]> redisTemplate, RedisScript<?>... scripts) {
+        redisTemplate.execute((RedisCallback<Void>) connection -> {
+            for (RedisScript<?> script : scripts) {
+                connection.scriptingCommands().scriptLoad(script.getScriptAsString().getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        });
+    }
+
+    private static String read(String name) {
+        try {
+            return StreamUtils.copyToString(new ClassPathResource("scripts/" + name).getInputStream(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Script " + name + " not found", e);
+        }
+    }
+}
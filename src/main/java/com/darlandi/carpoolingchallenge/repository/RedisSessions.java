@@ -0,0 +1,63 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+
+import java.util.List;
+
+/**
+ * Commands run in one session of the RedisTemplate of the stores, with the key and value
+ * types of the template. A SessionCallback is given the operations of the template that
+ * runs it, so the cast to its types is safe.
+ */
+final class RedisSessions {
+
+    private RedisSessions() {
+    }
+
+    /**
+     * Run the commands in a pipeline, in a single round-trip.
+     *
+     * @return Results of the commands, in order.
+     */
+    static List<Object> pipelined(RedisTemplate<String, byte[]> redisTemplate, Commands commands) {
+        return redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                commands.queue(typed(operations));
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Run the commands in a MULTI/EXEC transaction.
+     *
+     * @return Results of the commands.
+     */
+    static List<Object> transaction(RedisTemplate<String, byte[]> redisTemplate, Commands commands) {
+        return redisTemplate.execute(new SessionCallback<List<Object>>() {
+            @Override
+            public <K, V> List<Object> execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, byte[]> session = typed(operations);
+                session.multi();
+                commands.queue(session);
+                return session.exec();
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> RedisOperations<String, byte[]> typed(RedisOperations<K, V> operations) {
+        return (RedisOperations<String, byte[]>) operations;
+    }
+
+    /**
+     * Commands queued in a session.
+     */
+    @FunctionalInterface
+    interface Commands {
+        void queue(RedisOperations<String, byte[]> operations);
+    }
+}
@@ -0,0 +1,173 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.ZSetOperations.TypedTuple;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Waiting queue backed by Redis, shared by all the instances of the service.
+ * The journey IDs are saved in one sorted set per group size, scored by their arrival
+ * sequence, so removing a journey from the middle of the queue is O(log n) for Redis.
+ * The sequence grows from the tail counter and decreases from the head counter when a
+ * journey is added to the top. A journey ID is only waiting once, like in the in-memory
+ * queue: adding it removes it from the sub-queues of the other sizes. The commands over
+ * all the sub-queues are pipelined, so they only cost one round-trip.
+ */
+@Repository
+@ConditionalOnProperty(name = "carpooling.store", havingValue = "redis")
+public class RedisWaitingQueue implements WaitingQueue {
+    private final RedisTemplate<String, byte[]> redisTemplate;
+    private final RedisGenerations generations;
+    private final ZSetOperations<String, byte[]> zSetOperations;
+    private final ValueOperations<String, byte[]> valueOperations;
+
+    public RedisWaitingQueue(RedisTemplate<String, byte[]> redisTemplate, RedisGenerations generations) {
+        this.redisTemplate = redisTemplate;
+        this.generations = generations;
+        this.zSetOperations = redisTemplate.opsForZSet();
+        this.valueOperations = redisTemplate.opsForValue();
+    }
+
+    @Override
+    public void addLast(long journeyId, int people) {
+        Long sequence = valueOperations.increment(RedisKeys.WAITING_LIST_TAIL);
+        RedisSessions.pipelined(redisTemplate, operations -> add(operations, journeyId, people, sequence));
+    }
+
+    /**
+     * Reserve the sequences of all the journeys with one INCRBY, then add them in a pipeline.
+     */
+    @Override
+    public void addAllLast(List<Journey> journeys) {
+        Long last = valueOperations.increment(RedisKeys.WAITING_LIST_TAIL, journeys.size());
+        long first = last - journeys.size() + 1;
+        RedisSessions.pipelined(redisTemplate, operations -> {
+            for (int i = 0; i < journeys.size(); i++) {
+                Journey journey = journeys.get(i);
+                add(operations, journey.getId(), journey.getPeople(), first + i);
+            }
+        });
+    }
+
+    @Override
+    public void addFirst(long journeyId, int people) {
+        Long sequence = valueOperations.decrement(RedisKeys.WAITING_LIST_HEAD);
+        RedisSessions.pipelined(redisTemplate, operations -> add(operations, journeyId, people, sequence));
+    }
+
+    @Override
+    public Optional<Long> first() {
+        return firstFitting(Constants.MAX_PEOPLE);
+    }
+
+    @Override
+    public Optional<Long> firstFitting(int seatsAvailable) {
+        int maxPeople = Math.min(seatsAvailable, Constants.MAX_PEOPLE);
+        if (maxPeople < Constants.MIN_PEOPLE) {
+            return Optional.empty();
+        }
+        List<Object> heads = pipelined(maxPeople, (operations, key) -> operations.opsForZSet().rangeWithScores(key, 0, 0));
+        return merge(heads).stream().findFirst();
+    }
+
+    @Override
+    public List<Long> getAll() {
+        return merge(pipelined(Constants.MAX_PEOPLE, (operations, key) -> operations.opsForZSet().rangeWithScores(key, 0, -1)));
+    }
+
+    @Override
+    public boolean remove(long journeyId) {
+        byte[] member = RedisCodec.encodeId(journeyId);
+        List<Object> removed = pipelined(Constants.MAX_PEOPLE, (operations, key) -> operations.opsForZSet().remove(key, member));
+        return removed.stream().anyMatch(count -> ((Long) count) > 0);
+    }
+
+    @Override
+    public long size() {
+        List<Object> sizes = pipelined(Constants.MAX_PEOPLE, (operations, key) -> operations.opsForZSet().zCard(key));
+        return sizes.stream().mapToLong(size -> (Long) size).sum();
+    }
+
+    @Override
+    public long size(int people) {
+        if (people < Constants.MIN_PEOPLE || people > Constants.MAX_PEOPLE) {
+            return 0;
+        }
+        Long size = zSetOperations.zCard(RedisKeys.waitingList(people));
+        return size == null ? 0 : size;
+    }
+
+    @Override
+    public void clear() {
+        List<String> keys = new ArrayList<>();
+        keys.add(RedisKeys.WAITING_LIST_TAIL);
+        keys.add(RedisKeys.WAITING_LIST_HEAD);
+        for (int people = Constants.MIN_PEOPLE; people <= Constants.MAX_PEOPLE; people++) {
+            keys.add(RedisKeys.waitingList(people));
+        }
+        generations.retire(keys);
+    }
+
+    /**
+     * Queue the removal of a journey ID from the sub-queues of the other sizes and its
+     * addition to the sub-queue of its size, which moves it if it was already there.
+     */
+    private static void add(RedisOperations<String, byte[]> operations, long journeyId, int people, double sequence) {
+        byte[] member = RedisCodec.encodeId(journeyId);
+        for (int size = Constants.MIN_PEOPLE; size <= Constants.MAX_PEOPLE; size++) {
+            if (size != people) {
+                operations.opsForZSet().remove(RedisKeys.waitingList(size), member);
+            }
+        }
+        operations.opsForZSet().add(RedisKeys.waitingList(people), member, sequence);
+    }
+
+    /**
+     * Merge the journey IDs of the sub-queues in arrival order.
+     */
+    private static List<Long> merge(List<Object> subQueues) {
+        List<TypedTuple<?>> journeys = new ArrayList<>();
+        for (Object subQueue : subQueues) {
+            for (Object journey : (Set<?>) subQueue) {
+                journeys.add((TypedTuple<?>) journey);
+            }
+        }
+        journeys.sort(Comparator.comparing(TypedTuple::getScore));
+        List<Long> journeyList = new ArrayList<>(journeys.size());
+        for (TypedTuple<?> journey : journeys) {
+            journeyList.add(RedisCodec.decodeId((byte[]) journey.getValue()));
+        }
+        return journeyList;
+    }
+
+    /**
+     * Run a command over the sub-queues of 1 to maxPeople people in a single round-trip.
+     */
+    private List<Object> pipelined(int maxPeople, SubQueueCommand command) {
+        return RedisSessions.pipelined(redisTemplate, operations -> {
+            for (int people = Constants.MIN_PEOPLE; people <= maxPeople; people++) {
+                command.queue(operations, RedisKeys.waitingList(people));
+            }
+        });
+    }
+
+    /**
+     * Command queued for a sub-queue inside a pipeline.
+     */
+    @FunctionalInterface
+    private interface SubQueueCommand {
+        void queue(RedisOperations<String, byte[]> operations, String key);
+    }
+}
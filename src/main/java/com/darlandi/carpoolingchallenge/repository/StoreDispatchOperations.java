@@ -0,0 +1,123 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.strategy.CarClass;
+import com.darlandi.carpoolingchallenge.strategy.SeatAssignmentStrategy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Dispatch operations made of single store calls. They are only atomic because the
+ * dispatch loop is the only writer of the in-memory store. In a batch the cars are
+ * updated one journey after the other, and the journeys are read, updated or deleted
+ * with a single command at the end.
+ */
+@Repository
+@ConditionalOnProperty(name = "carpooling.store", havingValue = "memory", matchIfMissing = true)
+public class StoreDispatchOperations implements DispatchOperations {
+    private final CarPoolingRepository carPoolingRepository;
+    private final JourneyRepository journeyRepository;
+    private final SeatAssignmentStrategy strategy;
+
+    public StoreDispatchOperations(CarPoolingRepository carPoolingRepository, JourneyRepository journeyRepository,
+                                   SeatAssignmentStrategy strategy) {
+        this.carPoolingRepository = carPoolingRepository;
+        this.journeyRepository = journeyRepository;
+        this.strategy = strategy;
+    }
+
+    @Override
+    public Optional<Car> assign(Journey journey) {
+        Optional<Car> carAvailable = assignCar(journey);
+        carAvailable.ifPresent(car -> journeyRepository.update(journey));
+        return carAvailable;
+    }
+
+    @Override
+    public DropOffStatus dropOff(long journeyId) {
+        DropOffStatus status = freeCar(journeyRepository.get(journeyId));
+        if (status == DropOffStatus.DROPPED) {
+            journeyRepository.delete(journeyId);
+        }
+        return status;
+    }
+
+    @Override
+    public List<Optional<Car>> assignAll(List<Journey> journeys) {
+        List<Optional<Car>> cars = new ArrayList<>(journeys.size());
+        List<Journey> assigned = new ArrayList<>();
+        for (Journey journey : journeys) {
+            Optional<Car> carAvailable = assignCar(journey);
+            carAvailable.ifPresent(car -> assigned.add(journey));
+            cars.add(carAvailable);
+        }
+        journeyRepository.updateAll(assigned);
+        return cars;
+    }
+
+    @Override
+    public List<DropOffStatus> dropOffAll(List<Long> journeyIds) {
+        List<Optional<Journey>> journeys = journeyRepository.getAll(journeyIds);
+        List<DropOffStatus> statuses = new ArrayList<>(journeyIds.size());
+        List<Long> dropped = new ArrayList<>();
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < journeyIds.size(); i++) {
+            // A repeated ID has already been dropped off by its first occurrence.
+            DropOffStatus status = seen.add(journeyIds.get(i))
+                    ? freeCar(journeys.get(i))
+                    : DropOffStatus.JOURNEY_NOT_FOUND;
+            if (status == DropOffStatus.DROPPED) {
+                dropped.add(journeyIds.get(i));
+            }
+            statuses.add(status);
+        }
+        journeyRepository.deleteAll(dropped);
+        return statuses;
+    }
+
+    /**
+     * Take the seats of the journey in the first car found of the classes chosen by the
+     * strategy, and set the car ID in the journey, which is not saved.
+     */
+    private Optional<Car> assignCar(Journey journey) {
+        int people = journey.getPeople();
+        for (CarClass carClass : strategy.candidates(people, journeyRepository::sizeWaitingList)) {
+            Optional<Car> carAvailable = carPoolingRepository.getCar(carClass.getSeatsAvailable(), carClass.getSeats());
+            if (carAvailable.isPresent()) {
+                carPoolingRepository.update(carClass.leftover(people), carAvailable.get());
+                journey.setCarId(carAvailable.get().getId());
+                journeyRepository.removeWaitingList(journey.getId());
+                return carAvailable;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Give back the seats of the journey to its car, or remove it from the waiting list.
+     * The journey is not deleted.
+     */
+    private DropOffStatus freeCar(Optional<Journey> journeyOptional) {
+        if (journeyOptional.isEmpty()) {
+            return DropOffStatus.JOURNEY_NOT_FOUND;
+        }
+        Journey journey = journeyOptional.get();
+        if (journey.getCarId() != null) {
+            Optional<Car> carOptional = carPoolingRepository.get(journey.getCarId());
+            if (carOptional.isEmpty()) {
+                return DropOffStatus.CAR_NOT_FOUND;
+            }
+            carPoolingRepository.update(carOptional.get().getAvailableSeats() + journey.getPeople(), carOptional.get());
+        } else {
+            journeyRepository.removeWaitingList(journey.getId());
+        }
+        return DropOffStatus.DROPPED;
+    }
+}
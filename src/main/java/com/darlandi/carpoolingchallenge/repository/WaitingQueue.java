@@ -0,0 +1,94 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Journey;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Queue of the journey IDs waiting for a car, in arrival order.
+ * The queue is split into one FIFO sub-queue per group size sharing a global arrival
+ * sequence, so the oldest group that fits in some free seats is found peeking at most
+ * MAX_PEOPLE sub-queues. Adding, removing any journey ID and reading the first one do
+ * not depend on the length of the queue. The engine is selected with the
+ * "carpooling.store" property.
+ */
+public interface WaitingQueue {
+
+    /**
+     * Add a journey ID at the end of the queue.
+     *
+     * @param journeyId ID of the journey.
+     * @param people    Number of people of the journey.
+     */
+    void addLast(long journeyId, int people);
+
+    /**
+     * Add the journey IDs at the end of the queue, in the order of the list.
+     *
+     * @param journeys List of journeys.
+     */
+    default void addAllLast(List<Journey> journeys) {
+        for (Journey journey : journeys) {
+            addLast(journey.getId(), journey.getPeople());
+        }
+    }
+
+    /**
+     * Add a journey ID at the top of the queue.
+     *
+     * @param journeyId ID of the journey.
+     * @param people    Number of people of the journey.
+     */
+    void addFirst(long journeyId, int people);
+
+    /**
+     * Get the first journey ID of the queue.
+     *
+     * @return Optional ID of the journey.
+     */
+    Optional<Long> first();
+
+    /**
+     * Get the first journey ID of the queue whose group fits in the given seats.
+     *
+     * @param seatsAvailable Number of seats available.
+     * @return Optional ID of the journey.
+     */
+    Optional<Long> firstFitting(int seatsAvailable);
+
+    /**
+     * Get all the journey IDs in arrival order.
+     *
+     * @return List of IDs.
+     */
+    List<Long> getAll();
+
+    /**
+     * Remove a journey ID from any position of the queue.
+     *
+     * @param journeyId ID of the journey.
+     * @return True if the journey ID was waiting.
+     */
+    boolean remove(long journeyId);
+
+    /**
+     * Number of waiting journeys.
+     *
+     * @return Size of the queue.
+     */
+    long size();
+
+    /**
+     * Number of waiting journeys of a group size.
+     *
+     * @param people Number of people of the journeys.
+     * @return Size of the sub-queue.
+     */
+    long size(int people);
+
+    /**
+     * Remove all the journey IDs.
+     */
+    void clear();
+}
@@ -3,52 +3,260 @@ package com.darlandi.carpoolingchallenge.services;
 import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
 import com.darlandi.carpoolingchallenge.entities.Car;
 import com.darlandi.carpoolingchallenge.exceptions.BadInputException;
+import com.darlandi.carpoolingchallenge.exceptions.UploadInProgressException;
 import com.darlandi.carpoolingchallenge.repository.CarPoolingRepository;
+import com.darlandi.carpoolingchallenge.repository.FleetLoader;
 import com.darlandi.carpoolingchallenge.utils.Constants;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.util.MultiValueMap;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Car pooling service to check and save cars and some utils.
  */
 @Service
 public class CarPoolingService {
+    private static final Logger logger = LoggerFactory.getLogger(CarPoolingService.class);
     private static final String KEY_ID = "ID";
+    private static final String FIELD_ID = "id";
+    private static final String FIELD_SEATS = "seats";
+
+    /**
+     * Only one upload at a time, as the Redis store writes every new fleet in the same keys.
+     * A new upload waits for it at most "carpooling.load.permit-timeout".
+     */
+    private final Semaphore uploadPermit = new Semaphore(1);
 
     @Autowired
-    private SeatDispatcherService seatDispatcherService;
+    private ObjectMapper objectMapper;
 
     @Autowired
     private CarPoolingRepository carPoolingRepository;
 
+    @Autowired
+    private DispatchMetrics dispatchMetrics;
+
+    @Autowired
+    private WaitingAges waitingAges;
+
+    @Value("${carpooling.load.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${carpooling.load.permit-timeout:1s}")
+    private Duration permitTimeout;
+
     /**
-     * Check if the list of cars given is correct. If it is correct, then save
-     * all the cars in the DB depending on the seats available.
+     * Check if the list of cars given is correct. If it is correct, then load
+     * all the cars in the DB in batches, replacing the previous fleet at once.
      * If a car do not meet the min and max seats' requirement, or the ID is repeated
      * then delete all the DB and throw Exception.
      *
      * @param carList JSON list with all the cars.
      */
     public void register(List<CarDataTransferObject> carList) throws BadInputException {
-        Set<Long> registeredId = new HashSet<>();
+        if (!isValid(carList)) {
+            carPoolingRepository.deleteAll();
+            fleetLoaded(0);
+            throw new BadInputException();
+        }
+        long start = System.nanoTime();
+        FleetLoader loader = carPoolingRepository.newLoader(batchSize);
+        long seats = 0;
+        try {
+            for (CarDataTransferObject carDTO : carList) {
+                loader.add(new Car(carDTO.getId(), carDTO.getSeats()));
+                seats += carDTO.getSeats();
+            }
+            loader.commit();
+            fleetLoaded(seats);
+        } catch (RuntimeException e) {
+            loader.abort();
+            throw e;
+        }
+        logLoaded(carList.size(), start);
+    }
+
+    /**
+     * Read a fleet of cars from a JSON array, or from a sequence of JSON objects such as
+     * NDJSON, and write it aside in batches while it is read, with the JsonParser tokens
+     * instead of binding the whole list. It is called in the request thread, so the cars
+     * are written while the rest of the body is received. The upload must then be
+     * finished by register(FleetUpload) in the DispatchLoop.
+     *
+     * @param body     Stream of the request body.
+     * @param sequence True to read a sequence of JSON objects (NDJSON), false to read a JSON array.
+     * @return FleetUpload, discarded if a car is not correct.
+     * @throws IOException                If the body can't be read, it is not JSON or, without
+     *                                    sequence, it is not an array. The new fleet is discarded.
+     * @throws UploadInProgressException If another upload still runs after the permit timeout,
+     *                                    or the thread is interrupted while it waits. The body is
+     *                                    not read.
+     */
+    public FleetUpload upload(InputStream body, boolean sequence) throws IOException, UploadInProgressException {
+        try {
+            if (!uploadPermit.tryAcquire(permitTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                throw new UploadInProgressException();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UploadInProgressException();
+        }
+        FleetUpload upload;
+        try {
+            upload = new FleetUpload(carPoolingRepository.newLoader(batchSize), uploadPermit);
+        } catch (RuntimeException e) {
+            uploadPermit.release();
+            throw e;
+        }
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            read(parser, upload, sequence);
+        } catch (IOException | RuntimeException e) {
+            upload.reject();
+            upload.close();
+            throw e;
+        }
+        return upload;
+    }
+
+    /**
+     * Discard an upload that will not be registered, such as one rejected by the
+     * DispatchLoop, and let the next upload start.
+     *
+     * @param upload FleetUpload read by upload(InputStream).
+     */
+    public void discard(FleetUpload upload) {
+        upload.reject();
+        upload.close();
+    }
+
+    /**
+     * Replace the fleet with the cars of an upload. If a car was not correct, then delete
+     * all the cars and throw Exception, like register(List).
+     *
+     * @param upload FleetUpload read by upload(InputStream).
+     */
+    public void register(FleetUpload upload) throws BadInputException {
+        try {
+            if (!upload.isValid()) {
+                carPoolingRepository.deleteAll();
+                fleetLoaded(0);
+                throw new BadInputException();
+            }
+            try {
+                upload.getLoader().commit();
+                fleetLoaded(upload.getSeats());
+            } catch (RuntimeException e) {
+                upload.getLoader().abort();
+                throw e;
+            }
+            logLoaded(upload.size(), upload.getStart());
+        } finally {
+            upload.close();
+        }
+    }
+
+    /**
+     * Add the cars of the body to the upload until the end of the body or the first car
+     * that is not correct. The unknown fields are skipped. Only a sequence can be empty or
+     * have the cars outside an array, like the bound List of the JSON body.
+     */
+    private static void read(JsonParser parser, FleetUpload upload, boolean sequence) throws IOException {
+        JsonToken token = parser.nextToken();
+        boolean array = token == JsonToken.START_ARRAY;
+        if (array) {
+            token = parser.nextToken();
+        } else if (!sequence) {
+            throw new JsonParseException(parser, "The car list is not a JSON array");
+        }
+        while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+            if (token != JsonToken.START_OBJECT) {
+                upload.reject();
+                return;
+            }
+            Long id = null;
+            Long seats = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (FIELD_ID.equals(field)) {
+                    id = readLong(parser);
+                } else if (FIELD_SEATS.equals(field)) {
+                    seats = readLong(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (!upload.add(id, seats)) {
+                return;
+            }
+            token = parser.nextToken();
+        }
+    }
+
+    /**
+     * Read an integer field, also given as a string like the bound DTOs.
+     *
+     * @return Value of the field, null if it is missing or not an integer.
+     */
+    private static Long readLong(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT:
+                return parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER ? null : parser.getLongValue();
+            case VALUE_STRING:
+                try {
+                    return Long.parseLong(parser.getText().trim());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            default:
+                parser.skipChildren();
+                return null;
+        }
+    }
+
+    /**
+     * Forget the arrivals of the journeys waiting before a new fleet, and record it.
+     */
+    private void fleetLoaded(long seats) {
+        waitingAges.clear();
+        dispatchMetrics.fleetLoaded(seats);
+    }
+
+    private static void logLoaded(int cars, long start) {
+        long elapsedMicros = Math.max(1, (System.nanoTime() - start) / 1_000);
+        logger.info("Loaded {} cars in {} ms ({} cars/s).", cars, elapsedMicros / 1_000,
+                cars * 1_000_000L / elapsedMicros);
+    }
+
+    /**
+     * Check in one pass that every car has an ID and its seats are in range, and that no ID is repeated.
+     */
+    private static boolean isValid(List<CarDataTransferObject> carList) {
+        Set<Long> registeredId = new HashSet<>(carList.size() * 2);
         for (CarDataTransferObject carDTO : carList) {
             if (carDTO.getId() == null || carDTO.getSeats() == null ||
                     carDTO.getSeats() < Constants.MIN_SEATS || carDTO.getSeats() > Constants.MAX_SEATS ||
-                    registeredId.contains(carDTO.getId())) {
-                registeredId.clear();
-                carPoolingRepository.deleteAll();
-                throw new BadInputException();
+                    !registeredId.add(carDTO.getId())) {
+                return false;
             }
-            registeredId.add(carDTO.getId());
-            Car newCar = new Car(carDTO.getId(), carDTO.getSeats());
-            seatDispatcherService.saveAvailableSeats(newCar);
         }
-        registeredId.clear();
+        return true;
     }
 
     /**
@@ -0,0 +1,267 @@
+package com.darlandi.carpoolingchallenge.services;
+
+import com.darlandi.carpoolingchallenge.repository.DispatchJournal;
+import com.darlandi.carpoolingchallenge.utils.MpscRingBuffer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Single writer of the car pooling state.
+ * The request threads submit tasks to a lock-free ring buffer and get a CompletableFuture
+ * for their response, and a dedicated thread runs the tasks one by one in arrival order.
+ * As only this thread reads and writes the cars, journeys and waiting list, a car can
+ * never be assigned twice and the stores do not need any lock.
+ * The time every task waits in the buffer and the time it runs are measured apart, so a
+ * slow response can be told from a long queue.
+ * With a DispatchJournal, the responses are held until the events of their tasks are
+ * durable: the tasks run while there are more in the buffer, up to a group of
+ * MAX_GROUP_SIZE, and then the whole group is synced at once (group commit).
+ * A task is rejected with a RejectedExecutionException when the buffer stays full for
+ * "carpooling.dispatch.offer-timeout", or when the loop has been stopped, so a request
+ * thread never waits for a slot or a response forever.
+ */
+@Component
+public class DispatchLoop {
+    private static final Logger logger = LoggerFactory.getLogger(DispatchLoop.class);
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final int MAX_GROUP_SIZE = 1024;
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final MpscRingBuffer<Task<?>> buffer;
+    private final Thread thread;
+    private final Timer queueTimer;
+    private final Timer runTimer;
+    private final DispatchJournal journal;
+    private final Task<?>[] group;
+    private final Timer syncTimer;
+    private final long offerTimeoutNanos;
+    private volatile boolean running = true;
+    private volatile boolean parked;
+    private boolean metered = true;
+
+    public DispatchLoop(@Value("${carpooling.dispatch.buffer-size:65536}") int bufferSize,
+                        @Value("${carpooling.dispatch.offer-timeout:1s}") Duration offerTimeout,
+                        MeterRegistry registry, ObjectProvider<DispatchJournal> journal) {
+        this.buffer = new MpscRingBuffer<>(bufferSize);
+        this.thread = new Thread(this::run, "dispatch-loop");
+        this.queueTimer = Timer.builder("carpooling.dispatch.queue")
+                .description("Time a task waits in the buffer of the dispatch loop").register(registry);
+        this.runTimer = Timer.builder("carpooling.dispatch.run")
+                .description("Time the dispatch loop runs a task").register(registry);
+        this.journal = journal.getIfAvailable(() -> DispatchJournal.NONE);
+        this.group = new Task<?>[this.journal.isEnabled() ? MAX_GROUP_SIZE : 0];
+        this.syncTimer = Timer.builder("carpooling.dispatch.sync")
+                .description("Time the dispatch loop waits for the journal of a group of tasks").register(registry);
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+    }
+
+    @PostConstruct
+    public void start() {
+        thread.start();
+        logger.info("Dispatch loop started with a buffer of {} tasks.", buffer.capacity());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join();
+    }
+
+    /**
+     * Run a task in the dispatch thread.
+     * If the buffer is full, the caller spins for a while and then parks until there is a
+     * free slot, up to the offer timeout.
+     *
+     * @param action Action to run.
+     * @param <T>    Type of the result.
+     * @return Future completed with the result of the action, or with its exception. It
+     * fails with a RejectedExecutionException if the buffer is still full at the timeout
+     * or the loop is stopped, and then the action is never run.
+     */
+    public <T> CompletableFuture<T> submit(Action<T> action) {
+        Task<T> task = new Task<>(action);
+        if (!running) {
+            task.reject("The dispatch loop is stopped.");
+            return task.future;
+        }
+        int spins = 0;
+        long deadline = 0;
+        while (!buffer.offer(task)) {
+            if (spins < SPINS_BEFORE_PARK) {
+                spins++;
+                Thread.onSpinWait();
+            } else if (deadline == 0) {
+                deadline = System.nanoTime() + offerTimeoutNanos;
+            } else if (System.nanoTime() - deadline >= 0 || !running) {
+                task.reject("The dispatch loop buffer is full.");
+                return task.future;
+            } else {
+                LockSupport.parkNanos(this, PARK_NANOS);
+            }
+        }
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+        if (!running) {
+            // The loop may have drained the buffer and exited before the offer.
+            task.reject("The dispatch loop is stopped.");
+        }
+        return task.future;
+    }
+
+    /**
+     * Stop or restart measuring the tasks, such as the tasks of the startup warm-up. It must
+     * be called by a task, and the task that switches the meters is not measured.
+     *
+     * @param metered Whether the tasks are measured.
+     */
+    public void setMetered(boolean metered) {
+        this.metered = metered;
+    }
+
+    private void run() {
+        int spins = 0;
+        int grouped = 0;
+        while (running || !buffer.isEmpty()) {
+            Task<?> task = buffer.poll();
+            if (task != null && !task.claim()) {
+                // Rejected by its submitter after the loop was stopped.
+                spins = 0;
+            } else if (task != null) {
+                long start = System.nanoTime();
+                boolean meter = metered;
+                task.run();
+                if (meter && metered) {
+                    queueTimer.record(start - task.submitted, TimeUnit.NANOSECONDS);
+                    runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+                if (group.length == 0) {
+                    task.complete();
+                } else {
+                    group[grouped++] = task;
+                    if (grouped == group.length || buffer.isEmpty()) {
+                        commit(grouped);
+                        grouped = 0;
+                    }
+                }
+                spins = 0;
+            } else if (spins < SPINS_BEFORE_PARK) {
+                spins++;
+                Thread.onSpinWait();
+            } else {
+                parked = true;
+                if (buffer.isEmpty() && running) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                spins = 0;
+            }
+        }
+        if (grouped > 0) {
+            commit(grouped);
+        }
+    }
+
+    /**
+     * Sync the journal and complete the responses of a group of tasks. If the events
+     * can't be saved, the responses fail, although the state has already changed.
+     */
+    private void commit(int grouped) {
+        long start = System.nanoTime();
+        RuntimeException error = null;
+        try {
+            journal.sync();
+        } catch (RuntimeException e) {
+            logger.error("Error syncing the dispatch journal.", e);
+            error = e;
+        }
+        if (metered) {
+            syncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        for (int i = 0; i < grouped; i++) {
+            if (error == null) {
+                group[i].complete();
+            } else {
+                group[i].fail(error);
+            }
+            group[i] = null;
+        }
+    }
+
+    /**
+     * Action that reads or updates the car pooling state.
+     *
+     * @param <T> Type of the result.
+     */
+    @FunctionalInterface
+    public interface Action<T> {
+        T run() throws Exception;
+    }
+
+    private static final class Task<T> {
+        private final Action<T> action;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final long submitted = System.nanoTime();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private T result;
+        private Throwable error;
+
+        private Task(Action<T> action) {
+            this.action = action;
+        }
+
+        /**
+         * Claim the task to run it or to reject it, only once.
+         */
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        /**
+         * Fail the task unless the loop has already claimed it to run it.
+         */
+        private void reject(String message) {
+            if (claim()) {
+                future.completeExceptionally(new RejectedExecutionException(message));
+            }
+        }
+
+        private void run() {
+            try {
+                result = action.run();
+            } catch (Exception e) {
+                error = e;
+            } catch (Error e) {
+                error = e;
+                logger.error("Error running a dispatch task.", e);
+            }
+        }
+
+        private void complete() {
+            if (error == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }
+
+        private void fail(Throwable syncError) {
+            future.completeExceptionally(error == null ? syncError : error);
+        }
+    }
+}
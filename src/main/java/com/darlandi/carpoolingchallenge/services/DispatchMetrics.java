@@ -0,0 +1,214 @@
+package com.darlandi.carpoolingchallenge.services;
+
+import com.darlandi.carpoolingchallenge.repository.CarPoolingRepository;
+import com.darlandi.carpoolingchallenge.repository.DispatchOperations.DropOffStatus;
+import com.darlandi.carpoolingchallenge.repository.JourneyRepository;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Meters of the matching engine, served with the rest of the metrics in /actuator/prometheus.
+ * The timers and counters are updated by the dispatch loop. The in-memory stores are only
+ * used by the dispatch loop, so the gauges of the cars, the seats and the waiting list
+ * are counted by a task of the dispatch loop when the scrape reads them, and every gauge
+ * is a consistent count between two tasks. If the dispatch loop does not answer within
+ * GAUGE_TIMEOUT_MS, or it is stopped, the gauge is NaN. The oldest waiting ages are
+ * published by WaitingAges, so they are read without a task.
+ * The arrivals of the waiting journeys are part of the dispatch state, kept by WaitingAges:
+ * the services pass the arrival of a journey that leaves the waiting list, and the gauges
+ * read the oldest ones. The timers and counters can be stopped, so the startup warm-up
+ * is not counted.
+ */
+@Component
+public class DispatchMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(DispatchMetrics.class);
+    private static final long GAUGE_TIMEOUT_MS = 1000;
+    private static final String ASSIGN = "carpooling.assign";
+    private static final String ASSIGNMENTS = "carpooling.assignments";
+
+    private final Timer assignedTimer;
+    private final Timer noCarTimer;
+    private final Counter assignedOnArrival;
+    private final Counter assignedFromWaitingList;
+    private final Counter noCarAvailable;
+    private final Counter waitingListEnqueued;
+    private final Map<DropOffStatus, Counter> dropOffs = new EnumMap<>(DropOffStatus.class);
+    private final Timer[] timeToAssignment = new Timer[Constants.MAX_PEOPLE + 1];
+    private final Timer waitedAssigned;
+    private final Timer waitedDropped;
+    private final DispatchLoop dispatchLoop;
+    private final CarPoolingRepository carPoolingRepository;
+    private volatile long fleetSeats;
+    private boolean metered = true;
+
+    public DispatchMetrics(MeterRegistry registry, DispatchLoop dispatchLoop, CarPoolingRepository carPoolingRepository,
+                           JourneyRepository journeyRepository, WaitingAges waitingAges) {
+        this.dispatchLoop = dispatchLoop;
+        this.carPoolingRepository = carPoolingRepository;
+        assignedTimer = Timer.builder(ASSIGN).description("Time to search and assign a car to a journey")
+                .tag("outcome", "assigned").register(registry);
+        noCarTimer = Timer.builder(ASSIGN).description("Time to search and assign a car to a journey")
+                .tag("outcome", "no_car").register(registry);
+        assignedOnArrival = Counter.builder(ASSIGNMENTS).description("Journeys assigned to a car")
+                .tag("source", "arrival").register(registry);
+        assignedFromWaitingList = Counter.builder(ASSIGNMENTS).description("Journeys assigned to a car")
+                .tag("source", "waiting_list").register(registry);
+        noCarAvailable = Counter.builder("carpooling.no_car_available")
+                .description("Searches that did not find a car with enough seats").register(registry);
+        waitingListEnqueued = Counter.builder("carpooling.waiting_list.enqueued")
+                .description("Journeys added to the waiting list").register(registry);
+        for (DropOffStatus status : DropOffStatus.values()) {
+            dropOffs.put(status, Counter.builder("carpooling.dropoffs").description("Drop off requests")
+                    .tag("status", status.name().toLowerCase()).register(registry));
+        }
+        for (int people = Constants.MIN_PEOPLE; people <= Constants.MAX_PEOPLE; people++) {
+            timeToAssignment[people] = Timer.builder("carpooling.time_to_assignment")
+                    .description("Time from the arrival of a journey to its assignment")
+                    .tag("people", String.valueOf(people))
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+        waitedAssigned = Timer.builder("carpooling.waiting_list.age")
+                .description("Age of the journeys when they leave the waiting list")
+                .tag("outcome", "assigned").publishPercentileHistogram().register(registry);
+        waitedDropped = Timer.builder("carpooling.waiting_list.age")
+                .description("Age of the journeys when they leave the waiting list")
+                .tag("outcome", "dropped").publishPercentileHistogram().register(registry);
+
+        Gauge.builder("carpooling.waiting_list.depth", this, metrics -> metrics.count(journeyRepository::sizeWaitingList))
+                .description("Journeys waiting for a car").register(registry);
+        for (int people = Constants.MIN_PEOPLE; people <= Constants.MAX_PEOPLE; people++) {
+            int size = people;
+            Gauge.builder("carpooling.waiting_list.oldest_age", waitingAges, ages -> oldestAge(ages, size))
+                    .description("Time waited by the oldest waiting journey of a group size")
+                    .baseUnit("seconds").tag("people", String.valueOf(people)).register(registry);
+        }
+        for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+            int seatsAvailable = seats;
+            Gauge.builder("carpooling.cars", this, metrics -> metrics.count(() -> carPoolingRepository.size(seatsAvailable)))
+                    .description("Cars depending on their seats available")
+                    .tag("available_seats", String.valueOf(seats)).register(registry);
+        }
+        Gauge.builder("carpooling.seats.utilisation", this, metrics -> metrics.count(metrics::seatUtilisation))
+                .description("Ratio of the seats of the fleet that are taken").register(registry);
+    }
+
+    /**
+     * Record the search of a car for a journey.
+     *
+     * @param people       Number of people of the journey.
+     * @param elapsedNanos Time of the search.
+     * @param assigned     Whether a car has been assigned.
+     * @param arrivalNanos Arrival of the journey if it was waiting, from System.nanoTime, or -1.
+     */
+    public void assignment(int people, long elapsedNanos, boolean assigned, long arrivalNanos) {
+        if (!metered) {
+            return;
+        }
+        if (!assigned) {
+            noCarTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            noCarAvailable.increment();
+            return;
+        }
+        assignedTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (arrivalNanos < 0) {
+            assignedOnArrival.increment();
+            timeToAssignment[people].record(elapsedNanos, TimeUnit.NANOSECONDS);
+        } else {
+            long waited = System.nanoTime() - arrivalNanos;
+            assignedFromWaitingList.increment();
+            timeToAssignment[people].record(waited, TimeUnit.NANOSECONDS);
+            waitedAssigned.record(waited, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Record a journey added to the waiting list.
+     */
+    public void waitingListEnqueued() {
+        if (metered) {
+            waitingListEnqueued.increment();
+        }
+    }
+
+    /**
+     * Record a drop off request.
+     *
+     * @param status       Result of the drop off.
+     * @param arrivalNanos Arrival of the journey if it was waiting, from System.nanoTime, or -1.
+     */
+    public void dropOff(DropOffStatus status, long arrivalNanos) {
+        if (!metered) {
+            return;
+        }
+        if (arrivalNanos >= 0) {
+            waitedDropped.record(System.nanoTime() - arrivalNanos, TimeUnit.NANOSECONDS);
+        }
+        dropOffs.get(status).increment();
+    }
+
+    /**
+     * Record a new fleet.
+     *
+     * @param seats Total seats of the fleet, 0 if the fleet has been cleared.
+     */
+    public void fleetLoaded(long seats) {
+        fleetSeats = seats;
+    }
+
+    /**
+     * Stop or restart the timers and counters, the gauges still read the state. It must be
+     * called by the dispatch loop.
+     *
+     * @param metered Whether the timers and counters are updated.
+     */
+    public void setMetered(boolean metered) {
+        this.metered = metered;
+    }
+
+    private static double oldestAge(WaitingAges waitingAges, int people) {
+        long arrival = waitingAges.oldest(people);
+        return arrival < 0 ? 0 : (System.nanoTime() - arrival) / 1e9;
+    }
+
+    /**
+     * Read the state for a gauge in a task of the dispatch loop, waiting for it at most
+     * GAUGE_TIMEOUT_MS.
+     *
+     * @return The count, or NaN if it can't be read.
+     */
+    private double count(DispatchLoop.Action<? extends Number> count) {
+        try {
+            return dispatchLoop.submit(count).get(GAUGE_TIMEOUT_MS, TimeUnit.MILLISECONDS).doubleValue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("A gauge can't be read from the dispatch loop: {}", e.toString());
+        }
+        return Double.NaN;
+    }
+
+    private double seatUtilisation() {
+        long total = fleetSeats;
+        if (total == 0) {
+            return 0;
+        }
+        long free = 0;
+        for (int seats = 1; seats <= Constants.MAX_SEATS; seats++) {
+            free += seats * carPoolingRepository.size(seats);
+        }
+        return 1 - (double) free / total;
+    }
+}
@@ -0,0 +1,90 @@
+package com.darlandi.carpoolingchallenge.services;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.repository.FleetLoader;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import com.darlandi.carpoolingchallenge.utils.LongLongHashMap;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * A new fleet of cars read from a stream. Every car is validated and written aside by the
+ * FleetLoader as soon as it is read, so only the IDs are kept to find the repeated ones.
+ * The first invalid car discards the new fleet. The upload is finished by the
+ * CarPoolingService in the DispatchLoop, which commits the new fleet or clears all the
+ * cars like a rejected list.
+ */
+public class FleetUpload {
+    private final FleetLoader loader;
+    private final Semaphore permit;
+    private final LongLongHashMap ids = new LongLongHashMap();
+    private final long start = System.nanoTime();
+    private long seats;
+    private boolean valid = true;
+    private boolean closed;
+
+    FleetUpload(FleetLoader loader, Semaphore permit) {
+        this.loader = loader;
+        this.permit = permit;
+    }
+
+    /**
+     * Validate a car and add it to the new fleet.
+     *
+     * @param id    ID of the car, null if it is missing.
+     * @param seats Seats of the car, null if they are missing.
+     * @return False if the car is not correct or its ID is repeated, then the fleet is discarded.
+     */
+    boolean add(Long id, Long seats) {
+        if (id == null || seats == null || seats < Constants.MIN_SEATS || seats > Constants.MAX_SEATS ||
+                ids.containsKey(id)) {
+            reject();
+            return false;
+        }
+        ids.put(id, seats);
+        this.seats += seats;
+        loader.add(new Car(id, seats.intValue()));
+        return true;
+    }
+
+    /**
+     * Discard the new fleet, the cars read after it are not validated.
+     */
+    void reject() {
+        if (valid) {
+            valid = false;
+            ids.clear();
+            loader.abort();
+        }
+    }
+
+    boolean isValid() {
+        return valid;
+    }
+
+    int size() {
+        return ids.size();
+    }
+
+    long getSeats() {
+        return seats;
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    FleetLoader getLoader() {
+        return loader;
+    }
+
+    /**
+     * Let the next upload start. Only the first call releases the permit.
+     */
+    void close() {
+        if (!closed) {
+            closed = true;
+            permit.release();
+        }
+    }
+}
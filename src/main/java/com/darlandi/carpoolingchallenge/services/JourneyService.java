@@ -5,19 +5,23 @@ import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
 import com.darlandi.carpoolingchallenge.entities.Journey;
 import com.darlandi.carpoolingchallenge.entities.JourneyDataTransferObject;
 import com.darlandi.carpoolingchallenge.exceptions.BadInputException;
-import com.darlandi.carpoolingchallenge.exceptions.NoCarAvailableException;
-import com.darlandi.carpoolingchallenge.exceptions.NoCarFoundException;
-import com.darlandi.carpoolingchallenge.exceptions.NoJourneyFoundException;
 import com.darlandi.carpoolingchallenge.repository.CarPoolingRepository;
+import com.darlandi.carpoolingchallenge.repository.DispatchOperations.DropOffStatus;
 import com.darlandi.carpoolingchallenge.repository.JourneyRepository;
 import com.darlandi.carpoolingchallenge.utils.Constants;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Class to check, save, unregister... and some utils for journeys.
@@ -34,31 +38,174 @@ public class JourneyService {
     @Autowired
     private CarPoolingRepository carPoolingRepository;
 
+    @Autowired
+    private DispatchMetrics dispatchMetrics;
+
+    @Autowired
+    private WaitingAges waitingAges;
+
+    /**
+     * The first journey of the waiting list holds the free seats, and no younger journey
+     * takes a car before it, until it has waited this long; then the smaller groups that
+     * fit are served before it. Zero, the default, disables it: the head never holds the
+     * seats and the younger journeys that fit are always served.
+     */
+    @Value("${carpooling.waiting.max-head-wait:0s}")
+    private Duration maxHeadWait;
+
+    /**
+     * First journey of the waiting list and whether some car of the fleet is big enough for
+     * it, read from the store only when the head changes: while it is still waiting in the
+     * WaitingAges, or while there is no head and no journey has started waiting. Only used
+     * by the DispatchLoop thread.
+     */
+    private Optional<Journey> head = Optional.empty();
+    private boolean headFits;
+    private boolean headLoaded;
+
+    /**
+     * Whether the head held the free seats the last time it was checked, so the journeys
+     * held behind it are served once it has waited the max head wait.
+     */
+    private boolean holding;
+
+    /**
+     * Result of the registration of a journey.
+     */
+    public enum AssignmentResult {
+        ASSIGNED,
+        WAITING,
+        /**
+         * Only in a batch: the input is not correct, or the journey has already been saved
+         * or is repeated in the batch.
+         */
+        REJECTED
+    }
+
     /**
      * Check if the journey introduced satisfy max and minimum people,
      * and if it is not already saved in the Redis DB.
-     * If the journey is not found in the DB, then save it and try to find a car.
+     * If the journey is not found in the DB, then save it and try to find a car, or add
+     * it to the waiting list if there is no car available.
+     * While the first waiting journey holds the free seats (see maxHeadWait) the new
+     * journey waits behind it. Once it has waited the max head wait, the journeys held
+     * behind it that fit are served first. Otherwise, the waiting journeys never fit in any
+     * car (every drop-off reassigns all the ones that fit), so a new journey can take a car
+     * without skipping the arrival order.
      *
      * @param journeyDTO JourneyDTO object.
+     * @return AssignmentResult, ASSIGNED if a car has been assigned or WAITING if the journey is in the waiting list.
      */
 
-    public void register(JourneyDataTransferObject journeyDTO) throws BadInputException, NoCarAvailableException {
-        Optional<Journey> journeyOptional = journeyRepository.get(journeyDTO.getId());
-        if (journeyDTO.getId() == null || journeyDTO.getPeople() == null ||
-                journeyDTO.getPeople() > Constants.MAX_PEOPLE ||
-                journeyDTO.getPeople() < Constants.MIN_PEOPLE ||
-                journeyOptional.isPresent()) {
+    public AssignmentResult register(JourneyDataTransferObject journeyDTO) throws BadInputException {
+        if (!isValid(journeyDTO) || journeyRepository.get(journeyDTO.getId()).isPresent()) {
             throw new BadInputException();
         }
-        if (journeyOptional.isEmpty()) {
-            Journey journey = new Journey(journeyDTO.getId(), journeyDTO.getPeople());
-            journeyRepository.create(journey);
-            if (journeyRepository.sizeWaitingList() == 0) {
-                seatDispatcherService.assignAvailableCar(journey);
+        Journey journey = new Journey(journeyDTO.getId(), journeyDTO.getPeople());
+        journey.setArrivalNanos(System.nanoTime());
+        journeyRepository.create(journey);
+        releaseExpiredHead();
+        if (!headHolds() && seatDispatcherService.assignAvailableCar(journey).isPresent()) {
+            return AssignmentResult.ASSIGNED;
+        }
+        journeyRepository.addToWaitingList(journey.getId(), journey.getPeople());
+        enqueued(journey);
+        return AssignmentResult.WAITING;
+    }
+
+    /**
+     * Register a batch of journeys as if they had arrived one by one in the order of the
+     * list, with one storage command per step instead of one per journey: check which
+     * are already saved, save the new ones, assign the cars and add the rest to the
+     * waiting list. A journey without a car never fits in the cars left to the next ones,
+     * so the waiting journeys can be added at the end keeping their order. With the max
+     * head wait enabled and an empty waiting list, the first journey without a car would
+     * hold the seats for the next ones, so they are assigned one by one until then.
+     *
+     * @param journeyDTOs List of JourneyDTO objects.
+     * @return List of AssignmentResult, in the order of the journeys.
+     */
+    public List<AssignmentResult> registerAll(List<JourneyDataTransferObject> journeyDTOs) {
+        List<AssignmentResult> results = new ArrayList<>(journeyDTOs.size());
+        List<Integer> positions = new ArrayList<>();
+        List<Long> journeyIds = new ArrayList<>();
+        Set<Long> repeated = new HashSet<>();
+        for (int i = 0; i < journeyDTOs.size(); i++) {
+            results.add(AssignmentResult.REJECTED);
+            JourneyDataTransferObject journeyDTO = journeyDTOs.get(i);
+            if (isValid(journeyDTO) && repeated.add(journeyDTO.getId())) {
+                positions.add(i);
+                journeyIds.add(journeyDTO.getId());
+            }
+        }
+        List<Optional<Journey>> saved = journeyRepository.getAll(journeyIds);
+        List<Journey> journeys = new ArrayList<>(journeyIds.size());
+        List<Integer> journeyPositions = new ArrayList<>(journeyIds.size());
+        long arrival = System.nanoTime();
+        for (int i = 0; i < journeyIds.size(); i++) {
+            if (saved.get(i).isEmpty()) {
+                int position = positions.get(i);
+                Journey journey = new Journey(journeyIds.get(i), journeyDTOs.get(position).getPeople());
+                journey.setArrivalNanos(arrival);
+                journeys.add(journey);
+                journeyPositions.add(position);
+            }
+        }
+        journeyRepository.createAll(journeys);
+        releaseExpiredHead();
+        List<Optional<Car>> cars = assignBatch(journeys);
+        List<Journey> waiting = new ArrayList<>();
+        for (int i = 0; i < journeys.size(); i++) {
+            if (cars.get(i).isPresent()) {
+                results.set(journeyPositions.get(i), AssignmentResult.ASSIGNED);
             } else {
-                throw new NoCarAvailableException();
+                waiting.add(journeys.get(i));
+                results.set(journeyPositions.get(i), AssignmentResult.WAITING);
             }
         }
+        journeyRepository.addAllToWaitingList(waiting);
+        for (Journey journey : waiting) {
+            enqueued(journey);
+        }
+        return results;
+    }
+
+    /**
+     * Assign the cars to the journeys of a batch, in order, unless the head holds the free
+     * seats.
+     */
+    private List<Optional<Car>> assignBatch(List<Journey> journeys) {
+        if (headHolds()) {
+            return Collections.nCopies(journeys.size(), Optional.empty());
+        }
+        if (!isHeadWaitEnabled() || waitingHead().isPresent()) {
+            return seatDispatcherService.assignAvailableCars(journeys);
+        }
+        List<Optional<Car>> cars = new ArrayList<>(journeys.size());
+        boolean held = false;
+        for (Journey journey : journeys) {
+            Optional<Car> car = held ? Optional.empty() : seatDispatcherService.assignAvailableCar(journey);
+            held = held || car.isEmpty() && carPoolingRepository.sizeWithSeats(journey.getPeople()) > 0;
+            cars.add(car);
+        }
+        return cars;
+    }
+
+    /**
+     * Start the wait of a journey added to the waiting list at its arrival.
+     */
+    private void enqueued(Journey journey) {
+        waitingAges.add(journey.getId(), journey.getPeople(), journey.getArrivalNanos());
+        dispatchMetrics.waitingListEnqueued();
+    }
+
+    /**
+     * Check the ID and the number of people of a journey.
+     */
+    private static boolean isValid(JourneyDataTransferObject journeyDTO) {
+        return journeyDTO != null && journeyDTO.getId() != null && journeyDTO.getPeople() != null &&
+                journeyDTO.getPeople() <= Constants.MAX_PEOPLE &&
+                journeyDTO.getPeople() >= Constants.MIN_PEOPLE;
     }
 
 
@@ -66,114 +213,120 @@ public class JourneyService {
      * Free the car associated with the journey and remove the journey from the DB.
      *
      * @param id ID of the journey.
+     * @return DropOffStatus, DROPPED if the journey has been dropped off.
      */
 
-    public void dropOffGroup(Long id) throws NoJourneyFoundException, NoCarFoundException {
-        Optional<Journey> journeyOptional = journeyRepository.get(id);
-        if (journeyOptional.isPresent()) {
-            if (journeyOptional.get().getCarId() != null) {
-                Optional<Car> carOptional = carPoolingRepository.get(journeyOptional.get().getCarId());
-                if (carOptional.isPresent()) {
-                    seatDispatcherService.updateAvailableSeats(carOptional.get(),
-                            carOptional.get().getAvailableSeats() + journeyOptional.get().getPeople());
-                } else {
-                    throw new NoCarFoundException();
-                }
-            } else {
-                journeyRepository.removeWaitingList(id);
-            }
-            journeyRepository.delete(id);
-        } else {
-            throw new NoJourneyFoundException();
-        }
+    public DropOffStatus dropOffGroup(long id) {
+        return seatDispatcherService.freeSeats(id);
+    }
+
+    /**
+     * Drop off a batch of journeys in the order of the list. The waiting journeys are
+     * not reassigned.
+     *
+     * @param ids List of journey IDs.
+     * @return List of DropOffStatus, in the order of the journeys.
+     */
+    public List<DropOffStatus> dropOffGroups(List<Long> ids) {
+        return seatDispatcherService.freeAllSeats(ids);
     }
 
 
     /**
-     * Check the first waiting journey and try to find a car for it. Keep the order
-     * of arrival, but if there is no car available, add a waiting weight to that
-     * journey and try to check the next waiting journey in the list.
+     * Reassign the free seats to the waiting journeys. While the first waiting journey
+     * holds the free seats, only it can be served, and the seats are held until it fits.
+     * Otherwise, serve the oldest waiting journey that fits in the car with more seats
+     * available, so a journey is only served before an older one if no car can serve the
+     * older one. Repeat until no waiting journey can be served.
+     *
+     * @return Number of waiting journeys that have been assigned a car.
      */
-    public void checkWaitingJourneys() {
-        Optional<Journey> journeyOptional = journeyRepository.getFirstWaiting();
-        if (journeyOptional.isPresent()) {
-            Journey journeyWaiting = journeyOptional.get();
-            try {
-                seatDispatcherService.assignAvailableCar(journeyWaiting);
-            } catch (NoCarAvailableException e) {
-                logger.warn(e + " There is no car with enough seats available for the waiting journey ID: " + journeyWaiting.getId());
-                addWeightToJourney(journeyWaiting);
-                checkWeightWaitingJourneys(journeyWaiting);
+    public int reassignWaitingJourneys() {
+        int assigned = 0;
+        while (true) {
+            int maxSeatsAvailable = carPoolingRepository.maxSeatsAvailable();
+            Optional<Journey> journeyOptional = headHolds()
+                    ? head.filter(journey -> journey.getPeople() <= maxSeatsAvailable)
+                    : journeyRepository.getFirstWaitingFitting(maxSeatsAvailable);
+            if (journeyOptional.isEmpty()) {
+                return assigned;
+            }
+            if (seatDispatcherService.assignAvailableCar(journeyOptional.get()).isEmpty()) {
+                logger.warn("There is no car with enough seats available for the waiting journey ID: {}", journeyOptional.get().getId());
+                headLoaded = false;
+                return assigned;
             }
+            assigned++;
         }
     }
 
     /**
-     * Check the waiting weight of the first waiting journey, if after some tries (limit)
-     * it is not possible to assign it a car, then check all the waiting list, but if
-     * there is no car either for the next waiting journey, add a weight to penalize it.
+     * Check whether the first waiting journey holds the free seats: the max head wait is
+     * enabled, some car of the fleet is big enough for it and it has not waited the max
+     * head wait yet. A waiting journey whose arrival is unknown in this instance starts
+     * waiting now.
      *
-     * @param journeyWaiting First waiting journey.
-     */
-    private void checkWeightWaitingJourneys(Journey journeyWaiting) {
-        double limit = carPoolingRepository.totalSize() * 0.3;
-        if (journeyWaiting.getWaitingWeight() > limit) {
-            List<Long> waitingJourneysIds = journeyRepository.getAllWaitingIds();
-            for (int i = 1; i < waitingJourneysIds.size(); i++) {
-                Optional<Journey> nextWaitingJourney = journeyRepository.get(waitingJourneysIds.get(i));
-                if (nextWaitingJourney.isPresent()) {
-                    try {
-                        seatDispatcherService.assignAvailableCar(nextWaitingJourney.get());
-                        break;
-                    } catch (NoCarAvailableException e) {
-                        logger.warn(e + " There is no car with enough seats available for the waiting journey ID: " + journeyWaiting.getId());
-                        addWeightToJourney(nextWaitingJourney.get());
-                    }
-                }
-            }
+     * @return True if no younger journey can take a car.
+     */
+    private boolean headHolds() {
+        if (!isHeadWaitEnabled()) {
+            return false;
         }
+        holding = waitingHead()
+                .filter(journey -> System.nanoTime() - waitingAges.arrival(journey.getId(), journey.getPeople())
+                        < maxHeadWait.toNanos() && headFits)
+                .isPresent();
+        return holding;
     }
 
     /**
-     * Add a waiting weight to a journey.
-     *
-     * @param journey Journey object.
+     * Once the head that held the free seats has waited the max head wait, serve the
+     * journeys held behind it that fit before the new ones.
      */
-    private void addWeightToJourney(Journey journey) {
-        int weight = journey.getWaitingWeight() + 1;
-        journey.setWaitingWeight(weight);
-        journeyRepository.update(journey);
+    private void releaseExpiredHead() {
+        if (holding && !headHolds()) {
+            reassignWaitingJourneys();
+        }
     }
 
     /**
-     * Get the car object associated with the journeyId.
+     * Get the first waiting journey, read from the store only when it has changed.
      *
-     * @param journeyId ID of the journey to search.
-     * @return Optional CarDataTransferObject.
-     */
-    public Optional<CarDataTransferObject> getJourneyCar(Long journeyId) throws NoJourneyFoundException {
-        Optional<Journey> journeyOptional = journeyRepository.get(journeyId);
-        if (journeyOptional.isPresent()) {
-            Optional<Car> carOptional = carPoolingRepository.get(journeyOptional.get().getCarId());
-            CarDataTransferObject carDTO = new CarDataTransferObject(carOptional.get().getId(),
-                    carOptional.get().getSeats());
-            return Optional.of(carDTO);
+     * @return Optional Journey, empty if no journey is waiting.
+     */
+    private Optional<Journey> waitingHead() {
+        boolean changed = !headLoaded || head.map(journey -> !waitingAges.isWaiting(journey.getId()))
+                .orElseGet(() -> !waitingAges.isEmpty());
+        if (changed) {
+            head = journeyRepository.getFirstWaiting();
+            headFits = head.filter(journey -> carPoolingRepository.sizeWithSeats(journey.getPeople()) > 0).isPresent();
+            headLoaded = true;
         }
-        throw new NoJourneyFoundException();
+        return head;
+    }
+
+    private boolean isHeadWaitEnabled() {
+        return !maxHeadWait.isZero() && !maxHeadWait.isNegative();
     }
 
     /**
-     * Check if the given ID journey is waiting for a car
+     * Get a journey given its id.
      *
-     * @param journeyId ID of the journey
-     * @throws NoCarAvailableException If there is no car assigned to the journey
-     */
-    public void journeyWaiting(Long journeyId) throws NoCarAvailableException {
-        Optional<Journey> journeyOptional = journeyRepository.get(journeyId);
-        if (journeyOptional.isPresent()) {
-            if (journeyOptional.get().getCarId() == null) {
-                throw new NoCarAvailableException();
-            }
-        }
+     * @param journeyId ID of the journey.
+     * @return Optional Journey, empty if the journey is not found.
+     */
+    public Optional<Journey> getJourney(long journeyId) {
+        return journeyRepository.get(journeyId);
+    }
+
+    /**
+     * Get the car assigned to a journey.
+     *
+     * @param journey Journey object.
+     * @return Optional CarDataTransferObject, empty if the journey is waiting or its car is not found.
+     */
+    public Optional<CarDataTransferObject> getJourneyCar(Journey journey) {
+        return carPoolingRepository.get(journey.getCarId())
+                .map(car -> new CarDataTransferObject(car.getId(), car.getSeats()));
     }
 }
@@ -2,77 +2,115 @@ package com.darlandi.carpoolingchallenge.services;
 
 import com.darlandi.carpoolingchallenge.entities.Car;
 import com.darlandi.carpoolingchallenge.entities.Journey;
-import com.darlandi.carpoolingchallenge.exceptions.NoCarAvailableException;
-import com.darlandi.carpoolingchallenge.repository.CarPoolingRepository;
-import com.darlandi.carpoolingchallenge.repository.JourneyRepository;
-import com.darlandi.carpoolingchallenge.utils.Constants;
+import com.darlandi.carpoolingchallenge.repository.DispatchOperations;
+import com.darlandi.carpoolingchallenge.repository.DispatchOperations.DropOffStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
 import java.util.Optional;
 
+import static com.darlandi.carpoolingchallenge.utils.SamplingTurboFilter.SAMPLED;
+
 /**
  * Class to assign cars with available seats to journeys.
+ * The steps of an assignment or a drop off are applied by the DispatchOperations of the store,
+ * and the journeys that leave the waiting list are removed from the WaitingAges.
  */
 @Component
 public class SeatDispatcherService {
     private static final Logger logger = LoggerFactory.getLogger(SeatDispatcherService.class);
 
     @Autowired
-    private JourneyRepository journeyRepository;
+    private DispatchOperations dispatchOperations;
 
+    @Autowired
+    private DispatchMetrics dispatchMetrics;
 
     @Autowired
-    private CarPoolingRepository carPoolingRepository;
+    private WaitingAges waitingAges;
 
     /**
-     * Save the cars in the Redis DB depending on its available seats.
+     * Search a car (with seats available) for a journey. Update the journey
+     * with the ID of the car assigned, and update the new seats available in the car.
+     * The car is chosen by the SeatAssignmentStrategy, by default the one with the fewest
+     * seats available that fits the group.
      *
-     * @param car Object.
+     * @param journey Journey object.
+     * @return Optional Car assigned, empty if no car has enough seats available.
      */
-    public void saveAvailableSeats(Car car) {
-        carPoolingRepository.create(car.getAvailableSeats(), car);
+    public Optional<Car> assignAvailableCar(Journey journey) {
+        long start = System.nanoTime();
+        Optional<Car> carAvailable = dispatchOperations.assign(journey);
+        assigned(journey, System.nanoTime() - start, carAvailable.isPresent());
+        if (carAvailable.isPresent()) {
+            logger.info(SAMPLED, "Car ID {} assigned to the journey ID {}", carAvailable.get().getId(), journey.getId());
+        }
+        return carAvailable;
     }
 
     /**
-     * Update the car in DB with the new available seats.
+     * Search a car for every journey, in order, with pipelined storage writes.
+     * The assignment timer records the mean time of the batch for every journey.
      *
-     * @param car            Object.
-     * @param availableSeats Number of the new available seats.
+     * @param journeys List of journeys.
+     * @return List of Optional Car assigned, in the order of the journeys.
      */
-    public void updateAvailableSeats(Car car, int availableSeats) {
-        carPoolingRepository.update(availableSeats, car);
+    public List<Optional<Car>> assignAvailableCars(List<Journey> journeys) {
+        if (journeys.isEmpty()) {
+            return List.of();
+        }
+        long start = System.nanoTime();
+        List<Optional<Car>> cars = dispatchOperations.assignAll(journeys);
+        long elapsed = (System.nanoTime() - start) / journeys.size();
+        for (int i = 0; i < journeys.size(); i++) {
+            Journey journey = journeys.get(i);
+            assigned(journey, elapsed, cars.get(i).isPresent());
+            if (cars.get(i).isPresent()) {
+                logger.info(SAMPLED, "Car ID {} assigned to the journey ID {}", cars.get(i).get().getId(), journey.getId());
+            }
+        }
+        return cars;
     }
 
     /**
-     * Search a car (with seats available) for a journey. Update the journey
-     * with the ID of the car assigned, and update the new seats available in the car.
-     * Try to match the same people and seats available, if it is not possible,
-     * search in the next car with more seats available.
+     * Free the seats of the journey in its car, or remove it from the waiting list,
+     * and delete the journey.
      *
-     * @param journey Journey object.
+     * @param journeyId ID of the journey.
+     * @return DropOffStatus, DROPPED if the journey has been dropped off.
      */
-    public void assignAvailableCar(Journey journey) throws NoCarAvailableException {
-        int numPeople = journey.getPeople();
-        Optional<Car> carAvailable = Optional.empty();
-        int seats = numPeople;
+    public DropOffStatus freeSeats(long journeyId) {
+        DropOffStatus status = dispatchOperations.dropOff(journeyId);
+        dispatchMetrics.dropOff(status, waitingAges.remove(journeyId));
+        return status;
+    }
 
-        for (; seats <= Constants.MAX_SEATS; seats++) {
-            carAvailable = carPoolingRepository.getCarSeatsAvailable(seats);
-            if (carAvailable.isPresent()) {
-                updateAvailableSeats(carAvailable.get(), seats - numPeople);
-                journey.setCarId(carAvailable.get().getId());
-                journeyRepository.update(journey);
-                journeyRepository.removeWaitingList(journey.getId());
-                logger.info("Car ID " + carAvailable.get().getId() + " assigned to the journey ID " + journey.getId());
-                break;
-            }
+    /**
+     * Free the seats of every journey, in order, with pipelined storage writes.
+     *
+     * @param journeyIds List of journey IDs.
+     * @return List of DropOffStatus, in the order of the journeys.
+     */
+    public List<DropOffStatus> freeAllSeats(List<Long> journeyIds) {
+        if (journeyIds.isEmpty()) {
+            return List.of();
         }
-        if (carAvailable.isEmpty()) {
-            throw new NoCarAvailableException();
+        List<DropOffStatus> statuses = dispatchOperations.dropOffAll(journeyIds);
+        for (int i = 0; i < journeyIds.size(); i++) {
+            dispatchMetrics.dropOff(statuses.get(i), waitingAges.remove(journeyIds.get(i)));
         }
+        return statuses;
     }
-}
 
+    /**
+     * Record the search of a car for a journey, which leaves the waiting list if it was
+     * waiting and a car has been assigned.
+     */
+    private void assigned(Journey journey, long elapsedNanos, boolean assigned) {
+        long arrival = assigned ? waitingAges.remove(journey.getId()) : -1;
+        dispatchMetrics.assignment(journey.getPeople(), elapsedNanos, assigned, arrival);
+    }
+}
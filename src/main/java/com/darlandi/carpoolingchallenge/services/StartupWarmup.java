@@ -0,0 +1,242 @@
+package com.darlandi.carpoolingchallenge.services;
+
+import com.darlandi.carpoolingchallenge.entities.JourneyDataTransferObject;
+import com.darlandi.carpoolingchallenge.exceptions.UploadInProgressException;
+import com.darlandi.carpoolingchallenge.repository.CarPoolingRepository;
+import com.darlandi.carpoolingchallenge.repository.JourneyRepository;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Last step of the startup, run before the web server starts listening, so no request
+ * can reach the service until it finishes.
+ * The Redis connection is checked, and with the in-memory store and an empty state the
+ * hot paths are compiled by the JIT with "carpooling.warmup.requests" synthetic requests
+ * run by the dispatch loop, with their bodies parsed from JSON: a fleet, arrivals,
+ * locates, drop-offs and batches. The meters are stopped while they run, and the state
+ * is reset at the end with an empty fleet. The warm-up is skipped with the Redis store,
+ * which can be shared by other instances, and when the journal has recovered a previous
+ * state.
+ * With "carpooling.warmup.exit=true" the application exits once it is ready: it is the
+ * training run that dumps the classes loaded by the startup and by the hot paths into a
+ * CDS archive (see the "cds" build profile).
+ */
+@Component
+public class StartupWarmup implements SmartLifecycle, ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(StartupWarmup.class);
+    private static final int WARMUP_CARS = 100;
+    private static final int BATCH_EVERY = 50;
+    private static final int BATCH_SIZE = 10;
+    private static final TypeReference<JourneyDataTransferObject> JOURNEY = new TypeReference<>() {
+    };
+    private static final TypeReference<List<JourneyDataTransferObject>> JOURNEY_LIST = new TypeReference<>() {
+    };
+    private static final TypeReference<List<Long>> ID_LIST = new TypeReference<>() {
+    };
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private LettuceConnectionFactory connectionFactory;
+
+    @Autowired
+    private DispatchLoop dispatchLoop;
+
+    @Autowired
+    private DispatchMetrics dispatchMetrics;
+
+    @Autowired
+    private WaitingAges waitingAges;
+
+    @Autowired
+    private CarPoolingService carPoolingService;
+
+    @Autowired
+    private JourneyService journeyService;
+
+    @Autowired
+    private CarPoolingRepository carPoolingRepository;
+
+    @Autowired
+    private JourneyRepository journeyRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${carpooling.store:memory}")
+    private String store;
+
+    @Value("${carpooling.warmup.requests:500}")
+    private int warmupRequests;
+
+    @Value("${carpooling.warmup.exit:false}")
+    private boolean exitAfterWarmup;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        long start = System.nanoTime();
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.ping();
+        }
+        int sent = 0;
+        if (warmupRequests > 0 && "memory".equals(store) && isEmpty()) {
+            dispatchLoop.submit(() -> setMetered(false)).join();
+            try {
+                sent = sendRequests();
+            } finally {
+                dispatchLoop.submit(this::reset).join();
+            }
+        }
+        running = true;
+        logger.info("Warm-up finished in {} ms with {} requests, {} ms after the JVM start.",
+                (System.nanoTime() - start) / 1_000_000, sent, ManagementFactory.getRuntimeMXBean().getUptime());
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Before the web server, which is started in the phase Integer.MAX_VALUE - 1.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 2;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        logger.info("Ready {} ms after the JVM start.", ManagementFactory.getRuntimeMXBean().getUptime());
+        if (exitAfterWarmup) {
+            logger.info("Exiting after the warm-up.");
+            System.exit(SpringApplication.exit(applicationContext));
+        }
+    }
+
+    private boolean isEmpty() {
+        return dispatchLoop.submit(() -> carPoolingRepository.totalSize() == 0 &&
+                journeyRepository.sizeWaitingList() == 0).join();
+    }
+
+    private Void setMetered(boolean metered) {
+        dispatchLoop.setMetered(metered);
+        dispatchMetrics.setMetered(metered);
+        return null;
+    }
+
+    /**
+     * Clear the fleet and the journeys of the warm-up, and restart the meters.
+     */
+    private Void reset() {
+        journeyRepository.deleteAll();
+        carPoolingRepository.deleteAll();
+        waitingAges.clear();
+        dispatchMetrics.fleetLoaded(0);
+        return setMetered(true);
+    }
+
+    /**
+     * Run the synthetic requests. Every journey is dropped off a few requests later, so
+     * some of them wait and are reassigned.
+     *
+     * @return Number of requests run.
+     */
+    private int sendRequests() {
+        StringBuilder cars = new StringBuilder("[");
+        for (int id = 1; id <= WARMUP_CARS; id++) {
+            cars.append(id == 1 ? "" : ",").append("{\"id\":").append(id).append(",\"seats\":")
+                    .append(Constants.MIN_SEATS + id % (Constants.MAX_SEATS - Constants.MIN_SEATS + 1)).append('}');
+        }
+        loadCars(cars.append(']').toString());
+        int sent = 1;
+        long journeyId = 0;
+        while (sent < warmupRequests) {
+            if (journeyId % BATCH_EVERY == BATCH_EVERY - 1) {
+                StringBuilder journeys = new StringBuilder("[");
+                StringBuilder dropoffs = new StringBuilder("[");
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    journeyId++;
+                    journeys.append(i == 0 ? "" : ",").append(journey(journeyId));
+                    dropoffs.append(i == 0 ? "" : ",").append(journeyId);
+                }
+                List<JourneyDataTransferObject> journeyDTOs = read(journeys.append(']').toString(), JOURNEY_LIST);
+                dispatchLoop.submit(() -> journeyService.registerAll(journeyDTOs)).join();
+                List<Long> ids = read(dropoffs.append(']').toString(), ID_LIST);
+                dispatchLoop.submit(() -> {
+                    journeyService.dropOffGroups(ids);
+                    return journeyService.reassignWaitingJourneys();
+                }).join();
+                sent += 2;
+            }
+            journeyId++;
+            JourneyDataTransferObject journeyDTO = read(journey(journeyId), JOURNEY);
+            dispatchLoop.submit(() -> journeyService.register(journeyDTO)).join();
+            long locateId = journeyId;
+            dispatchLoop.submit(() -> journeyService.getJourney(locateId).flatMap(journeyService::getJourneyCar)).join();
+            sent += 2;
+            if (journeyId > WARMUP_CARS) {
+                long dropOffId = journeyId - WARMUP_CARS;
+                dispatchLoop.submit(() -> {
+                    journeyService.dropOffGroup(dropOffId);
+                    return journeyService.reassignWaitingJourneys();
+                }).join();
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    private void loadCars(String json) {
+        try {
+            FleetUpload upload = carPoolingService.upload(
+                    new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), false);
+            dispatchLoop.submit(() -> {
+                journeyRepository.deleteAll();
+                carPoolingService.register(upload);
+                return null;
+            }).join();
+        } catch (IOException | UploadInProgressException e) {
+            throw new IllegalStateException("The warm-up fleet can't be read.", e);
+        }
+    }
+
+    private <T> T read(String json, TypeReference<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (IOException e) {
+            throw new IllegalStateException("A warm-up request can't be read.", e);
+        }
+    }
+
+    private static String journey(long journeyId) {
+        return "{\"id\":" + journeyId + ",\"people\":" + (Constants.MIN_PEOPLE + journeyId % Constants.MAX_PEOPLE) + "}";
+    }
+}
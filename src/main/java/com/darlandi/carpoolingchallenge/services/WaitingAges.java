@@ -0,0 +1,189 @@
+package com.darlandi.carpoolingchallenge.services;
+
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import com.darlandi.carpoolingchallenge.utils.LongLongHashMap;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Arrival times of the waiting journeys, from the monotonic clock (System.nanoTime). They
+ * are part of the dispatch state: the services add the journeys that start waiting and
+ * remove the ones that leave the waiting list, the max head wait is decided on them, the
+ * JourneyService checks on them whether its cached head of the waiting list is still
+ * waiting, and the meters only read them.
+ * Every journey ID is mapped to its arrival, and every group size has a FIFO of the
+ * arrivals in order, so the oldest waiting group of each size is the head of its FIFO.
+ * A journey that leaves the waiting list is only removed from the map: its entry in the
+ * FIFO is skipped when it reaches the head, so every operation is O(1) amortized.
+ * The oldest arrival of each size is published for the gauges, which are read outside
+ * the DispatchLoop. The rest is only used by the DispatchLoop thread.
+ * A journey waiting before a restart, or queued by another instance, has no arrival in
+ * this instance: its clock starts the first time it is the head of the waiting list.
+ */
+@Component
+public class WaitingAges {
+    private static final long NONE = -1L;
+
+    private final LongLongHashMap arrivals = new LongLongHashMap();
+    private final ArrivalQueue[] queues = new ArrivalQueue[Constants.MAX_PEOPLE + 1];
+    private final AtomicLongArray oldest = new AtomicLongArray(Constants.MAX_PEOPLE + 1);
+
+    public WaitingAges() {
+        for (int people = 0; people <= Constants.MAX_PEOPLE; people++) {
+            queues[people] = new ArrivalQueue();
+            oldest.set(people, NONE);
+        }
+    }
+
+    /**
+     * Record a journey added to the waiting list.
+     *
+     * @param journeyId    ID of the journey.
+     * @param people       Number of people of the journey.
+     * @param arrivalNanos Arrival of the journey, from System.nanoTime.
+     */
+    public void add(long journeyId, int people, long arrivalNanos) {
+        arrivals.put(journeyId, arrivalNanos);
+        queues[people].add(journeyId, arrivalNanos);
+        publish(people);
+    }
+
+    /**
+     * Get the arrival of a waiting journey, starting its clock now if it is unknown.
+     *
+     * @param journeyId ID of the journey.
+     * @param people    Number of people of the journey.
+     * @return Arrival of the journey, from System.nanoTime.
+     */
+    public long arrival(long journeyId, int people) {
+        long arrival = arrivals.get(journeyId, NONE);
+        if (arrival == NONE) {
+            arrival = System.nanoTime();
+            add(journeyId, people, arrival);
+        }
+        return arrival;
+    }
+
+    /**
+     * Record a journey that is not waiting anymore.
+     *
+     * @param journeyId ID of the journey.
+     * @return Arrival of the journey, or -1 if it was not waiting.
+     */
+    public long remove(long journeyId) {
+        long arrival = arrivals.get(journeyId, NONE);
+        if (arrival != NONE) {
+            arrivals.remove(journeyId);
+            for (int people = Constants.MIN_PEOPLE; people <= Constants.MAX_PEOPLE; people++) {
+                publish(people);
+            }
+        }
+        return arrival;
+    }
+
+    /**
+     * Check whether a journey is waiting with a known arrival.
+     *
+     * @param journeyId ID of the journey.
+     * @return True if the journey has been added and not removed.
+     */
+    public boolean isWaiting(long journeyId) {
+        return arrivals.containsKey(journeyId);
+    }
+
+    /**
+     * Check whether no journey is waiting with a known arrival.
+     *
+     * @return True if there are no arrivals.
+     */
+    public boolean isEmpty() {
+        return arrivals.size() == 0;
+    }
+
+    /**
+     * Oldest arrival of the waiting groups of a size, it can be read from any thread.
+     *
+     * @param people Number of people of the groups.
+     * @return Arrival from System.nanoTime, or -1 if no group of that size is waiting.
+     */
+    public long oldest(int people) {
+        return oldest.get(people);
+    }
+
+    /**
+     * Forget all the waiting journeys.
+     */
+    public void clear() {
+        arrivals.clear();
+        for (int people = 0; people <= Constants.MAX_PEOPLE; people++) {
+            queues[people].clear();
+            oldest.set(people, NONE);
+        }
+    }
+
+    /**
+     * Skip the journeys that have left the waiting list and publish the head of a size.
+     */
+    private void publish(int people) {
+        ArrivalQueue queue = queues[people];
+        while (!queue.isEmpty() && arrivals.get(queue.firstId(), NONE) != queue.firstArrival()) {
+            queue.removeFirst();
+        }
+        oldest.set(people, queue.isEmpty() ? NONE : queue.firstArrival());
+    }
+
+    /**
+     * Ring buffer of journey IDs and their arrivals, growing when it is full.
+     */
+    private static final class ArrivalQueue {
+        private long[] journeyIds = new long[16];
+        private long[] arrivals = new long[16];
+        private int head;
+        private int size;
+
+        void add(long journeyId, long arrival) {
+            if (size == journeyIds.length) {
+                journeyIds = grow(journeyIds);
+                arrivals = grow(arrivals);
+                head = 0;
+            }
+            int tail = (head + size) & (journeyIds.length - 1);
+            journeyIds[tail] = journeyId;
+            arrivals[tail] = arrival;
+            size++;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        long firstId() {
+            return journeyIds[head];
+        }
+
+        long firstArrival() {
+            return arrivals[head];
+        }
+
+        void removeFirst() {
+            head = (head + 1) & (journeyIds.length - 1);
+            size--;
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        /**
+         * Copy the ring in order into an array of twice the size.
+         */
+        private long[] grow(long[] ring) {
+            long[] grown = Arrays.copyOf(Arrays.copyOfRange(ring, head, ring.length), ring.length << 1);
+            System.arraycopy(ring, 0, grown, ring.length - head, head);
+            return grown;
+        }
+    }
+}
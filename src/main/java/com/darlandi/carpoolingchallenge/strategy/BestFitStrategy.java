@@ -0,0 +1,22 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+
+/**
+ * Take the car that leaves the fewest seats free, so the cars with more seats available
+ * are kept for the bigger groups. Between cars with the same seats available, the
+ * smaller car is taken.
+ */
+@Component
+@ConditionalOnProperty(name = "carpooling.assignment.strategy", havingValue = "best-fit", matchIfMissing = true)
+public class BestFitStrategy extends OrderedStrategy {
+    static final Comparator<CarClass> ORDER =
+            Comparator.comparingInt(CarClass::getSeatsAvailable).thenComparingInt(CarClass::getSeats);
+
+    public BestFitStrategy() {
+        super(ORDER);
+    }
+}
@@ -0,0 +1,78 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+import com.darlandi.carpoolingchallenge.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Kind of car a group can be assigned: the seats it has available and its total seats.
+ * The stores can find a car of a given class in O(1), so a strategy only has to choose
+ * the order in which the classes are tried.
+ */
+public final class CarClass {
+    private static final CarClass[][] CLASSES = new CarClass[Constants.MAX_SEATS + 1][Constants.MAX_SEATS + 1];
+
+    static {
+        for (int available = 0; available <= Constants.MAX_SEATS; available++) {
+            for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+                CLASSES[available][seats] = new CarClass(available, seats);
+            }
+        }
+    }
+
+    private final int seatsAvailable;
+    private final int seats;
+
+    private CarClass(int seatsAvailable, int seats) {
+        this.seatsAvailable = seatsAvailable;
+        this.seats = seats;
+    }
+
+    public static CarClass of(int seatsAvailable, int seats) {
+        return CLASSES[seatsAvailable][seats];
+    }
+
+    /**
+     * All the classes of car where a group fits, in no particular order.
+     *
+     * @param people Number of people of the group.
+     * @return List of CarClass.
+     */
+    public static List<CarClass> fitting(int people) {
+        List<CarClass> classes = new ArrayList<>();
+        for (int seats = Constants.MIN_SEATS; seats <= Constants.MAX_SEATS; seats++) {
+            for (int available = people; available <= seats; available++) {
+                classes.add(of(available, seats));
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Seats that are left after a group takes a car of this class.
+     */
+    public int leftover(int people) {
+        return seatsAvailable - people;
+    }
+
+    /**
+     * Seats already taken in a car of this class.
+     */
+    public int occupied() {
+        return seats - seatsAvailable;
+    }
+
+    public int getSeatsAvailable() {
+        return seatsAvailable;
+    }
+
+    public int getSeats() {
+        return seats;
+    }
+
+    @Override
+    public String toString() {
+        return seatsAvailable + "/" + seats;
+    }
+}
@@ -0,0 +1,56 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Best fit that looks at the waiting list: a car the group fills is tried first, then a
+ * car whose free seats left fit a waiting group exactly, then one whose seats left fit
+ * any waiting group, and the cars that would leave seats too few for anybody waiting at
+ * last. With nobody waiting it is the best fit.
+ * The order depends on the waiting list, so it is built for every assignment.
+ */
+@Component
+@ConditionalOnProperty(name = "carpooling.assignment.strategy", havingValue = "lookahead")
+public class LookaheadStrategy implements SeatAssignmentStrategy {
+    private final BestFitStrategy bestFit = new BestFitStrategy();
+
+    @Override
+    public List<CarClass> candidates(int people, WaitingDemand waiting) {
+        List<CarClass> bestFitOrder = bestFit.candidates(people, waiting);
+        boolean[] waitingSizes = new boolean[Constants.MAX_PEOPLE + 1];
+        int smallest = Integer.MAX_VALUE;
+        for (int size = Constants.MIN_PEOPLE; size <= Constants.MAX_PEOPLE; size++) {
+            if (waiting.waiting(size) > 0) {
+                waitingSizes[size] = true;
+                smallest = Math.min(smallest, size);
+            }
+        }
+        if (smallest == Integer.MAX_VALUE) {
+            return bestFitOrder;
+        }
+        List<CarClass> candidates = new ArrayList<>(bestFitOrder.size());
+        for (int rank = 0; rank < 4; rank++) {
+            for (CarClass carClass : bestFitOrder) {
+                if (rank(carClass.leftover(people), waitingSizes, smallest) == rank) {
+                    candidates.add(carClass);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private static int rank(int leftover, boolean[] waitingSizes, int smallest) {
+        if (leftover == 0) {
+            return 0;
+        }
+        if (leftover <= Constants.MAX_PEOPLE && waitingSizes[leftover]) {
+            return 1;
+        }
+        return leftover >= smallest ? 2 : 3;
+    }
+}
@@ -0,0 +1,20 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+
+/**
+ * Fill the car with the most seats already taken, so the groups are packed in the cars
+ * that are already travelling and the empty cars are kept whole. Between cars with the
+ * same seats taken, the best fit.
+ */
+@Component
+@ConditionalOnProperty(name = "carpooling.assignment.strategy", havingValue = "most-occupied")
+public class MostOccupiedStrategy extends OrderedStrategy {
+
+    public MostOccupiedStrategy() {
+        super(Comparator.comparingInt(CarClass::occupied).reversed().thenComparing(BestFitStrategy.ORDER));
+    }
+}
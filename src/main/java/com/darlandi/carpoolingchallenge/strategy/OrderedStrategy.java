@@ -0,0 +1,28 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+import com.darlandi.carpoolingchallenge.utils.Constants;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Strategy with a fixed order of classes for every group size, sorted once.
+ */
+abstract class OrderedStrategy implements SeatAssignmentStrategy {
+    private final List<List<CarClass>> orders = new ArrayList<>();
+
+    OrderedStrategy(Comparator<CarClass> order) {
+        for (int people = 0; people <= Constants.MAX_PEOPLE; people++) {
+            List<CarClass> classes = CarClass.fitting(people);
+            classes.sort(order);
+            orders.add(Collections.unmodifiableList(classes));
+        }
+    }
+
+    @Override
+    public List<CarClass> candidates(int people, WaitingDemand waiting) {
+        return orders.get(people);
+    }
+}
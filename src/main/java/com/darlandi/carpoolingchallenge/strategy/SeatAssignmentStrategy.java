@@ -0,0 +1,22 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+import java.util.List;
+
+/**
+ * Policy that chooses the car of a group, selected with "carpooling.assignment.strategy":
+ * best-fit (the default), worst-fit, most-occupied or lookahead.
+ * A strategy returns the classes of car to try in order, and the store assigns the first
+ * car it finds of one of them. It is called for every assignment by the DispatchLoop, so
+ * it must not block and should not allocate when the order does not depend on the demand.
+ */
+public interface SeatAssignmentStrategy {
+
+    /**
+     * Order in which the classes of car are tried for a group.
+     *
+     * @param people  Number of people of the group.
+     * @param waiting Groups in the waiting list, only read if the strategy needs them.
+     * @return List of CarClass, every one of them with enough seats available for the group.
+     */
+    List<CarClass> candidates(int people, WaitingDemand waiting);
+}
@@ -0,0 +1,21 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+/**
+ * Groups in the waiting list by size, read by the strategies that look ahead.
+ */
+@FunctionalInterface
+public interface WaitingDemand {
+
+    /**
+     * Demand of a waiting list that is empty.
+     */
+    WaitingDemand NONE = people -> 0;
+
+    /**
+     * Number of waiting groups of a size.
+     *
+     * @param people Number of people of the group.
+     * @return Number of waiting groups.
+     */
+    long waiting(int people);
+}
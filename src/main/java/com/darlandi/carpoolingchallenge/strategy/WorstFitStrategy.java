@@ -0,0 +1,19 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+
+/**
+ * Take the car that leaves the most seats free, spreading the groups over the fleet.
+ */
+@Component
+@ConditionalOnProperty(name = "carpooling.assignment.strategy", havingValue = "worst-fit")
+public class WorstFitStrategy extends OrderedStrategy {
+
+    public WorstFitStrategy() {
+        super(Comparator.comparingInt(CarClass::getSeatsAvailable).reversed()
+                .thenComparing(Comparator.comparingInt(CarClass::getSeats).reversed()));
+    }
+}
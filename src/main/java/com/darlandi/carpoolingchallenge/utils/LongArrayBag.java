@@ -0,0 +1,87 @@
+package com.darlandi.carpoolingchallenge.utils;
+
+import java.util.Arrays;
+
+/**
+ * Growable bag of primitive longs. Removing an element moves the last one into
+ * its position, so adding, removing by position and reading any element are O(1).
+ * The order of the elements is not kept.
+ */
+public final class LongArrayBag {
+    private long[] elements;
+    private int size;
+
+    public LongArrayBag() {
+        this(8);
+    }
+
+    public LongArrayBag(int initialCapacity) {
+        this.elements = new long[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * Add an element at the end of the bag.
+     *
+     * @param element Element to add.
+     * @return Position of the element.
+     */
+    public int add(long element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size << 1);
+        }
+        elements[size] = element;
+        return size++;
+    }
+
+    /**
+     * Remove the element at the given position, the last element is moved into it.
+     *
+     * @param position Position of the element to remove.
+     * @return True if another element has been moved into the position.
+     */
+    public boolean removeAt(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException(position);
+        }
+        size--;
+        if (position == size) {
+            return false;
+        }
+        elements[position] = elements[size];
+        return true;
+    }
+
+    /**
+     * Get the element at the given position.
+     *
+     * @param position Position of the element.
+     * @return Element.
+     */
+    public long get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException(position);
+        }
+        return elements[position];
+    }
+
+    /**
+     * Get the last element, which is the cheapest one to remove.
+     *
+     * @return Last element.
+     */
+    public long last() {
+        return get(size - 1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+}
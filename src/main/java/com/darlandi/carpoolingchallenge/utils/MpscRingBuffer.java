@@ -0,0 +1,92 @@
+package com.darlandi.carpoolingchallenge.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * Every slot has a sequence number: producers claim a position with a CAS on the tail
+ * and publish the element by advancing the sequence of its slot, and the consumer only
+ * reads a slot once it has been published. No thread ever blocks another one.
+ *
+ * @param <E> Type of the elements.
+ */
+public final class MpscRingBuffer<E> {
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private final int capacity;
+    private final int mask;
+    private long head;
+
+    /**
+     * @param capacity Number of slots, rounded up to a power of two.
+     */
+    public MpscRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.capacity = size;
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int slot = 0; slot < size; slot++) {
+            sequences.set(slot, slot);
+        }
+    }
+
+    /**
+     * Add an element, it can be called by any thread.
+     *
+     * @param element Element to add.
+     * @return False if the buffer is full.
+     */
+    public boolean offer(E element) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long available = sequences.get(slot) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(slot, element);
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+            } else if (available < 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Take the oldest element, it must only be called by the consumer thread.
+     *
+     * @return Element, or null if the buffer is empty.
+     */
+    public E poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return null;
+        }
+        E element = elements.get(slot);
+        elements.lazySet(slot, null);
+        sequences.lazySet(slot, head + capacity);
+        head++;
+        return element;
+    }
+
+    /**
+     * Check if there is no element to take, it must only be called by the consumer thread.
+     *
+     * @return True if the buffer is empty.
+     */
+    public boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
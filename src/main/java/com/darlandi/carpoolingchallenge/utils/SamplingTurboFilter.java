@@ -0,0 +1,44 @@
+package com.darlandi.carpoolingchallenge.utils;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Logback filter that only lets one of every "rate" events marked as SAMPLED through.
+ * It runs before the message is formatted or queued, so the events that are left out
+ * cost a counter increment. The events without the marker are not filtered.
+ */
+public class SamplingTurboFilter extends TurboFilter {
+    /**
+     * Marker of the high-volume events that can be sampled, such as a journey assigned or waiting.
+     */
+    public static final Marker SAMPLED = MarkerFactory.getMarker("SAMPLED");
+
+    private final AtomicLong events = new AtomicLong();
+    private int rate = 1;
+
+    /**
+     * @param rate Log one of every "rate" sampled events, 1 logs all of them.
+     */
+    public void setRate(int rate) {
+        this.rate = Math.max(1, rate);
+    }
+
+    public int getRate() {
+        return rate;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (!isStarted() || marker == null || !marker.contains(SAMPLED) || !logger.isEnabledFor(level)) {
+            return FilterReply.NEUTRAL;
+        }
+        return events.getAndIncrement() % rate == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+}
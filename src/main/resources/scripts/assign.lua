@@ -0,0 +1,29 @@
+-- Assign the first car found of the classes chosen by the SeatAssignmentStrategy.
+-- ARGV[4]: pairs of bytes (seats available, seats), in the order they are tried.
+-- Return the car ID followed by the car, or nil if no car fits.
+local journey = redis.call('HGET', JOURNEY, journeyId)
+if not journey then
+    return false
+end
+local people, assignedCarId = decodeJourney(journey)
+if assignedCarId then
+    local car = redis.call('HGET', CAR_INDEX, assignedCarId)
+    if not car then
+        return false
+    end
+    return assignedCarId .. car
+end
+
+local candidates = ARGV[4]
+for i = 1, #candidates - 1, 2 do
+    local available, seats = string.byte(candidates, i, i + 1)
+    local carId = available >= people
+            and redis.call('ZRANGEBYSCORE', carSeatsKey(available), seats, seats, 'LIMIT', 0, 1)[1]
+    if carId then
+        moveCar(carId, seats, available, available - people)
+        redis.call('HSET', JOURNEY, journeyId, string.char(people) .. carId)
+        redis.call('ZREM', waitingListKey(people), journeyId)
+        return carId .. encodeCar(seats, available - people)
+    end
+end
+return false
@@ -0,0 +1,20 @@
+-- Free the seats of the journey in its car, or remove it from the waiting list,
+-- and delete the journey.
+-- Return 1 if dropped, 0 if the journey is not found, -1 if its car is not found.
+local journey = redis.call('HGET', JOURNEY, journeyId)
+if not journey then
+    return 0
+end
+local people, carId = decodeJourney(journey)
+if carId then
+    local car = redis.call('HGET', CAR_INDEX, carId)
+    if not car then
+        return -1
+    end
+    local seats, available = decodeCar(car)
+    moveCar(carId, seats, available, available + people)
+else
+    redis.call('ZREM', waitingListKey(people), journeyId)
+end
+redis.call('HDEL', JOURNEY, journeyId)
+return 1
@@ -0,0 +1,43 @@
+-- Keys and arguments shared by the dispatch scripts.
+-- KEYS: car index, journeys, car buckets (0..MAX_SEATS seats available),
+--       waiting sub-queues (MIN_PEOPLE..MAX_PEOPLE people).
+-- ARGV: MAX_SEATS, MIN_PEOPLE, journey ID.
+-- The IDs are varint bytes and they are only compared and concatenated, never decoded.
+local CAR_INDEX = KEYS[1]
+local JOURNEY = KEYS[2]
+local MAX_SEATS = tonumber(ARGV[1])
+local MIN_PEOPLE = tonumber(ARGV[2])
+local journeyId = ARGV[3]
+
+local function carSeatsKey(seatsAvailable)
+    return KEYS[3 + seatsAvailable]
+end
+
+local function waitingListKey(people)
+    return KEYS[4 + MAX_SEATS + people - MIN_PEOPLE]
+end
+
+-- Journey value: 1 byte with the people, followed by the car ID once it has a car.
+local function decodeJourney(value)
+    local carId = string.sub(value, 2)
+    if carId == '' then
+        carId = nil
+    end
+    return string.byte(value, 1), carId
+end
+
+-- Car value: 2 bytes with the seats and the available seats.
+local function decodeCar(value)
+    return string.byte(value, 1), string.byte(value, 2)
+end
+
+local function encodeCar(seats, available)
+    return string.char(seats, available)
+end
+
+local function moveCar(carId, seats, fromAvailable, toAvailable)
+    redis.call('ZREM', carSeatsKey(fromAvailable), carId)
+    redis.call('ZADD', carSeatsKey(toAvailable), seats, carId)
+    redis.call('HSET', CAR_INDEX, carId, encodeCar(seats, toAvailable))
+end
+
@@ -0,0 +1,22 @@
+-- Retire the current generation of some keys and start a new one.
+-- KEYS: the generation counter, the live keys, and optionally the same number of
+--       replacement keys.
+-- ARGV: number of live keys.
+-- Every live key is renamed under the "GEN:n:" prefix (O(1), its content is not freed
+-- here), and then replaced by its replacement key if it exists.
+-- Return the names of the retired keys.
+local count = tonumber(ARGV[1])
+local prefix = 'GEN:' .. redis.call('INCR', KEYS[1]) .. ':'
+local retired = {}
+for i = 2, count + 1 do
+    local key = KEYS[i]
+    if redis.call('EXISTS', key) == 1 then
+        redis.call('RENAME', key, prefix .. key)
+        retired[#retired + 1] = prefix .. key
+    end
+    local replacement = KEYS[count + i]
+    if replacement and redis.call('EXISTS', replacement) == 1 then
+        redis.call('RENAME', replacement, key)
+    end
+end
+return retired
@@ -0,0 +1,134 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import com.darlandi.carpoolingchallenge.controller.embeddedRedisConfigurationTest.TestRedisConfiguration;
+import com.darlandi.carpoolingchallenge.entities.BatchResultDataTransferObject;
+import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.*;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * These tests check the batch endpoints: There is only 1 car of 4 seats. A batch of
+ * journeys brings a group of 2 people, a group of 4 people, a repeated ID, a group of
+ * 7 people, another group of 2 people and another group of 4 people. The groups of 2
+ * people fill the car in arrival order and the groups of 4 people wait. When a batch
+ * drops off both groups of 2 people, only the first group of 4 people rides.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = TestRedisConfiguration.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CarPoolingBatchTest {
+
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        restTemplateBuilder = restTemplateBuilder.rootUri("http://localhost:" + port);
+        testRestTemplate = new TestRestTemplate(restTemplateBuilder);
+    }
+
+    @Test
+    @DisplayName("Load a car of 4 seats and register a batch of journeys in order")
+    @Order(1)
+    void testJourneysBatch() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+
+        HttpEntity<String> request = new HttpEntity<>("[{\"id\": 1,\"seats\": 4}]", headers);
+        ResponseEntity<String> response = testRestTemplate.exchange("/cars", HttpMethod.PUT, request, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        String json = """
+                [
+                 {"id": 1,"people": 2},
+                 {"id": 2,"people": 4},
+                 {"id": 1,"people": 3},
+                 {"id": 3,"people": 7},
+                 {"id": 4,"people": 2},
+                 {"id": 5,"people": 4}
+                ]
+                """;
+        request = new HttpEntity<>(json, headers);
+        ResponseEntity<BatchResultDataTransferObject[]> batchResponse =
+                testRestTemplate.exchange("/journeys:batch", HttpMethod.POST, request, BatchResultDataTransferObject[].class);
+        assertEquals(HttpStatus.OK, batchResponse.getStatusCode());
+        assertStatuses(batchResponse.getBody(), new Long[]{1L, 2L, 1L, 3L, 4L, 5L}, 200, 200, 400, 400, 200, 200);
+
+        request = new HttpEntity<>("[{\"id\": 4,\"people\": 1}]", headers);
+        batchResponse = testRestTemplate.exchange("/journeys:batch", HttpMethod.POST, request, BatchResultDataTransferObject[].class);
+        assertStatuses(batchResponse.getBody(), new Long[]{4L}, 400);
+
+        assertLocate(1, HttpStatus.OK);
+        assertLocate(2, HttpStatus.NO_CONTENT);
+        assertLocate(3, HttpStatus.NOT_FOUND);
+        assertLocate(4, HttpStatus.OK);
+        assertLocate(5, HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    @DisplayName("Drop off a batch of journeys and give the car to the first waiting group")
+    @Order(2)
+    void testDropOffsBatch() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+
+        HttpEntity<String> request = new HttpEntity<>("[1, 99, null, 4, 1]", headers);
+        ResponseEntity<BatchResultDataTransferObject[]> response =
+                testRestTemplate.exchange("/dropoffs:batch", HttpMethod.POST, request, BatchResultDataTransferObject[].class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertStatuses(response.getBody(), new Long[]{1L, 99L, null, 4L, 1L}, 200, 404, 400, 200, 404);
+
+        assertLocate(1, HttpStatus.NOT_FOUND);
+        assertLocate(2, HttpStatus.OK);
+        assertLocate(5, HttpStatus.NO_CONTENT);
+    }
+
+    @Test
+    @DisplayName("A batch that is not an array is a bad request")
+    @Order(3)
+    void testBadBatch() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+
+        HttpEntity<String> request = new HttpEntity<>("{\"id\": 6,\"people\": 2}", headers);
+        ResponseEntity<String> response = testRestTemplate.exchange("/journeys:batch", HttpMethod.POST, request, String.class);
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+    }
+
+    private static void assertStatuses(BatchResultDataTransferObject[] results, Long[] ids, int... statuses) {
+        assertEquals(statuses.length, results.length);
+        for (int i = 0; i < statuses.length; i++) {
+            assertEquals(ids[i], results[i].getId());
+            assertEquals(statuses[i], results[i].getStatus());
+        }
+    }
+
+    private void assertLocate(long id, HttpStatus status) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+
+        HttpEntity<String> request = new HttpEntity<>("ID=" + id, headers);
+        ResponseEntity<CarDataTransferObject> response =
+                testRestTemplate.exchange("/locate", HttpMethod.POST, request, CarDataTransferObject.class);
+        assertEquals(status, response.getStatusCode());
+        if (status == HttpStatus.OK) {
+            assertEquals(1L, response.getBody().getId());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import com.darlandi.carpoolingchallenge.controller.embeddedRedisConfigurationTest.TestRedisConfiguration;
+import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * These tests check the streaming load of the car list: a fleet sent as NDJSON with a car
+ * per line, a JSON array with a repeated ID after some correct cars, which clears all
+ * the cars, a body that is cut in the middle of a car, an empty body or a single car
+ * sent as JSON, which are not a list and keep the fleet, and a list sent while another
+ * one is still being received, which is rejected.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = TestRedisConfiguration.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CarPoolingCarStreamTest {
+
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        restTemplateBuilder = restTemplateBuilder.rootUri("http://localhost:" + port);
+        testRestTemplate = new TestRestTemplate(restTemplateBuilder);
+    }
+
+    @Test
+    @DisplayName("Load a car list as NDJSON, the unknown fields are skipped")
+    @Order(1)
+    void testLoadNdjson() {
+        String ndjson = """
+                {"id": 1,"seats": 4}
+                {"id": 2,"seats": 6,"plate": {"country": "ES","number": "1234ABC"}}
+                {"seats": 5,"id": "3"}
+                """;
+        assertEquals(HttpStatus.OK, putCars(ndjson, MediaType.APPLICATION_NDJSON));
+
+        postJourney(1, 6);
+        assertLocate(1, HttpStatus.OK, 2L);
+        postJourney(2, 5);
+        assertLocate(2, HttpStatus.OK, 3L);
+    }
+
+    @Test
+    @DisplayName("A repeated ID in the middle of the list clears all the cars and journeys")
+    @Order(2)
+    void testRepeatedId() {
+        String json = """
+                [
+                 {"id": 1,"seats": 4},
+                 {"id": 2,"seats": 4},
+                 {"id": 1,"seats": 5},
+                 {"id": 3,"seats": 4}
+                ]
+                """;
+        assertEquals(HttpStatus.BAD_REQUEST, putCars(json, MediaType.APPLICATION_JSON));
+
+        assertLocate(1, HttpStatus.NOT_FOUND, null);
+        postJourney(3, 1);
+        assertLocate(3, HttpStatus.NO_CONTENT, null);
+    }
+
+    @Test
+    @DisplayName("A body that is not JSON or not supported is a bad request")
+    @Order(3)
+    void testMalformedBody() {
+        assertEquals(HttpStatus.BAD_REQUEST, putCars("[{\"id\": 1,\"seats\": 4},{\"id\": 2,", MediaType.APPLICATION_JSON));
+        assertEquals(HttpStatus.BAD_REQUEST, putCars("[1, 2]", MediaType.APPLICATION_JSON));
+        assertEquals(HttpStatus.UNSUPPORTED_MEDIA_TYPE, putCars("{\"id\": 1,\"seats\": 4}", MediaType.TEXT_PLAIN));
+
+        assertEquals(HttpStatus.OK, putCars("[{\"id\": 1,\"seats\": 4}]", MediaType.APPLICATION_JSON));
+        postJourney(4, 4);
+        assertLocate(4, HttpStatus.OK, 1L);
+    }
+
+    @Test
+    @DisplayName("An empty body or a car outside an array is not a JSON list of cars")
+    @Order(4)
+    void testNotJsonArray() {
+        assertEquals(HttpStatus.BAD_REQUEST, putCars("", MediaType.APPLICATION_JSON));
+        assertEquals(HttpStatus.BAD_REQUEST, putCars("{\"id\": 2,\"seats\": 6}", MediaType.APPLICATION_JSON));
+
+        assertLocate(4, HttpStatus.OK, 1L);
+    }
+
+    @Test
+    @DisplayName("A car list sent while another one is still being received is a conflict")
+    @Order(5)
+    void testUploadInProgress() throws Exception {
+        try (Socket socket = new Socket("localhost", port)) {
+            OutputStream stalled = socket.getOutputStream();
+            stalled.write(("PUT /cars HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n" +
+                    "Content-Type: application/x-ndjson\r\nTransfer-Encoding: chunked\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            writeChunk(stalled, "{\"id\": 5,\"seats\": 5}\n");
+
+            // Until the stalled upload holds the permit, the list is loaded.
+            HttpStatus status = putCars("[{\"id\": 6,\"seats\": 6}]", MediaType.APPLICATION_JSON);
+            for (int attempt = 0; attempt < 50 && status == HttpStatus.OK; attempt++) {
+                Thread.sleep(100);
+                status = putCars("[{\"id\": 6,\"seats\": 6}]", MediaType.APPLICATION_JSON);
+            }
+            assertEquals(HttpStatus.CONFLICT, status);
+
+            writeChunk(stalled, "{\"id\": 7,\"seats\": 4}\n");
+            writeChunk(stalled, "");
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII)).readLine();
+            assertEquals("HTTP/1.1 200 ", statusLine);
+        }
+        postJourney(5, 5);
+        assertLocate(5, HttpStatus.OK, 5L);
+    }
+
+    private static void writeChunk(OutputStream body, String chunk) throws IOException {
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        body.write((Integer.toHexString(bytes.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.write(bytes);
+        body.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+        body.flush();
+    }
+
+    private HttpStatus putCars(String body, MediaType contentType) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(contentType);
+        HttpEntity<String> request = new HttpEntity<>(body, headers);
+        return testRestTemplate.exchange("/cars", HttpMethod.PUT, request, String.class).getStatusCode();
+    }
+
+    private void postJourney(long id, int people) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<String> request = new HttpEntity<>(String.format("{\"id\": %d,\"people\": %d}", id, people), headers);
+        ResponseEntity<String> response = testRestTemplate.exchange("/journey", HttpMethod.POST, request, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    private void assertLocate(long id, HttpStatus status, Long carId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+        HttpEntity<String> request = new HttpEntity<>("ID=" + id, headers);
+        ResponseEntity<CarDataTransferObject> response =
+                testRestTemplate.exchange("/locate", HttpMethod.POST, request, CarDataTransferObject.class);
+        assertEquals(status, response.getStatusCode());
+        if (carId != null) {
+            assertEquals(carId, response.getBody().getId());
+        }
+    }
+}
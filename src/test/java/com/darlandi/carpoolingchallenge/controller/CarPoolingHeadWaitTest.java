@@ -0,0 +1,152 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import com.darlandi.carpoolingchallenge.controller.embeddedRedisConfigurationTest.TestRedisConfiguration;
+import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.*;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * These tests check the max head wait: there is a car of 6 seats and a car of 5 seats. A
+ * batch of groups of 6, 4, 6 and 1 people fills the first car, takes 4 seats of the other
+ * one and leaves the second group of 6 people waiting, and the last group waits behind it
+ * although a seat is free. When the group of 4 people is dropped off, the free seats are
+ * held for the group of 6 people, so the later groups of 2 and 1 people wait too. Once it
+ * has waited the max head wait, the smaller groups are served in arrival order before a
+ * new one, and the group of 6 people rides when the car of 6 seats is freed.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = TestRedisConfiguration.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = "carpooling.waiting.max-head-wait=1s")
+class CarPoolingHeadWaitTest {
+
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        restTemplateBuilder = restTemplateBuilder.rootUri("http://localhost:" + port);
+        testRestTemplate = new TestRestTemplate(restTemplateBuilder);
+    }
+
+    @Test
+    @DisplayName("Load a car of 6 seats and a car of 5 seats")
+    @Order(1)
+    void testLoadAvailableCars() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+
+        String json = """
+                [
+                 {"id": 1,"seats": 6},
+                 {"id": 2,"seats": 5}
+                ]
+                """;
+
+        HttpEntity<String> request = new HttpEntity<>(json, headers);
+
+        ResponseEntity<String> response = testRestTemplate.exchange("/cars", HttpMethod.PUT, request, String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("A group that waits in a batch holds the free seats for the next ones")
+    @Order(2)
+    void testAddJourneys() {
+        addJourneys("[{\"id\": 1,\"people\": 6},{\"id\": 2,\"people\": 4},{\"id\": 3,\"people\": 6},"
+                + "{\"id\": 7,\"people\": 1}]");
+
+        assertEquals(1L, locate(1).getBody().getId());
+        assertEquals(2L, locate(2).getBody().getId());
+        assertEquals(HttpStatus.NO_CONTENT, locate(3).getStatusCode());
+        assertEquals(HttpStatus.NO_CONTENT, locate(7).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("The seats freed are held for the head group, and the new groups wait behind it")
+    @Order(3)
+    void testSeatsHeld() {
+        assertEquals(HttpStatus.OK, dropOff(2).getStatusCode());
+        addJourney(4, 2);
+        addJourneys("[{\"id\": 6,\"people\": 1}]");
+
+        assertEquals(HttpStatus.NO_CONTENT, locate(3).getStatusCode());
+        assertEquals(HttpStatus.NO_CONTENT, locate(7).getStatusCode());
+        assertEquals(HttpStatus.NO_CONTENT, locate(4).getStatusCode());
+        assertEquals(HttpStatus.NO_CONTENT, locate(6).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Once the head group has waited the max head wait, the smaller groups pass it in order")
+    @Order(4)
+    void testSmallerGroupsServed() throws InterruptedException {
+        Thread.sleep(1000);
+        addJourney(5, 1);
+
+        assertEquals(HttpStatus.NO_CONTENT, locate(3).getStatusCode());
+        for (long id : new long[]{7, 4, 6, 5}) {
+            ResponseEntity<CarDataTransferObject> response = locate(id);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(2L, response.getBody().getId());
+        }
+    }
+
+    @Test
+    @DisplayName("The head group rides when a car fits it")
+    @Order(5)
+    void testHeadGroupServed() {
+        assertEquals(HttpStatus.OK, dropOff(1).getStatusCode());
+
+        ResponseEntity<CarDataTransferObject> response = locate(3);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1L, response.getBody().getId());
+    }
+
+    private void addJourneys(String json) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        ResponseEntity<String> response =
+                testRestTemplate.exchange("/journeys:batch", HttpMethod.POST, new HttpEntity<>(json, headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    private void addJourney(long id, int people) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+        String json = String.format("{\"id\": %d,\"people\": %d}", id, people);
+        ResponseEntity<String> response =
+                testRestTemplate.exchange("/journey", HttpMethod.POST, new HttpEntity<>(json, headers), String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    private ResponseEntity<String> dropOff(long id) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        return testRestTemplate.exchange("/dropoff", HttpMethod.POST, new HttpEntity<>("ID=" + id, headers), String.class);
+    }
+
+    private ResponseEntity<CarDataTransferObject> locate(long id) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+        return testRestTemplate.exchange("/locate", HttpMethod.POST, new HttpEntity<>("ID=" + id, headers),
+                CarDataTransferObject.class);
+    }
+}
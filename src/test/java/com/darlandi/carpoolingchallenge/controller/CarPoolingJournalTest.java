@@ -0,0 +1,12 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Run the basic commands of the Rest API with the dispatch state journaled, so every
+ * response waits for the group commit of the DispatchLoop.
+ */
+@TestPropertySource(properties = {"carpooling.journal.enabled=true",
+        "carpooling.journal.dir=target/journal-${random.uuid}"})
+class CarPoolingJournalTest extends CarPoolingControllerTest {
+}
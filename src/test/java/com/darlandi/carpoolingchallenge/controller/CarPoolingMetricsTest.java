@@ -0,0 +1,54 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Run the basic commands of the Rest API and check the meters of the matching engine.
+ * The requests of the startup warm-up are not counted.
+ */
+@AutoConfigureMetrics
+class CarPoolingMetricsTest extends CarPoolingControllerTest {
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    @DisplayName("The meters are served in Prometheus format")
+    @Order(6)
+    void testPrometheusEndpoint() {
+        TestRestTemplate testRestTemplate = new TestRestTemplate(restTemplateBuilder.rootUri("http://localhost:" + port));
+        ResponseEntity<String> response = testRestTemplate.getForEntity("/actuator/prometheus", String.class);
+        String metrics = response.getBody();
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(metrics.contains("carpooling_assignments_total{source=\"arrival\",} 2.0"));
+        assertTrue(metrics.contains("carpooling_assignments_total{source=\"waiting_list\",} 1.0"));
+        assertTrue(metrics.contains("carpooling_waiting_list_enqueued_total 1.0"));
+        assertTrue(metrics.contains("carpooling_dropoffs_total{status=\"dropped\",} 1.0"));
+        assertTrue(metrics.contains("carpooling_waiting_list_depth 0.0"));
+        assertTrue(metrics.contains("carpooling_waiting_list_age_seconds_count{outcome=\"assigned\",} 1.0"));
+        assertTrue(metrics.contains("carpooling_waiting_list_age_seconds_count{outcome=\"dropped\",} 0.0"));
+        assertTrue(metrics.contains("carpooling_waiting_list_oldest_age_seconds{people=\"4\",} 0.0"));
+        assertTrue(metrics.contains("carpooling_cars{available_seats=\"0\",} 1.0"));
+        assertTrue(metrics.contains("carpooling_cars{available_seats=\"1\",} 1.0"));
+        assertTrue(metrics.contains("carpooling_time_to_assignment_seconds_count{people=\"4\",} 3.0"));
+        assertTrue(metrics.contains("carpooling_time_to_assignment_seconds_bucket{people=\"4\""));
+        assertTrue(metrics.contains("carpooling_seats_utilisation 0.888"));
+        assertTrue(metrics.contains("http_server_requests_seconds_count{"));
+    }
+}
@@ -18,11 +18,9 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
  * These tests allow to check the following case: There are 4 cars with only 4 seats,
  * first they are fill with groups of 1 person, and later come two groups of 5 people
  * (which obviously can't be served and block the waiting list) and a last group
- * of 1 people. Then, only a group of 1 person leave a car, and although the last group
- * could be served, it won't, because there is a "blocking state" that waits some
- * "dropoff" depending on the size of the car list. So then, when another "dropoff"
- * happens, the "blocking state" is broken and all the waiting list is checked to find
- * a car for a journey.
+ * of 1 people. Then, only a group of 1 person leave a car, and as no car can serve
+ * the groups of 5 people, the last group is served before them. The groups of 5 people
+ * keep waiting in the list.
  */
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 @SpringBootTest(classes = TestRedisConfiguration.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
@@ -133,7 +131,7 @@ class CarPoolingPriorityTest {
     }
 
     @Test
-    @DisplayName("Dropoff 2 groups of 1 person and try to give a car")
+    @DisplayName("Dropoff 1 group of 1 person and give the car to the last group")
     @Order(5)
     void testDropOffJourneysGiveCar() {
         ResponseEntity<String> response = null;
@@ -141,31 +139,25 @@ class CarPoolingPriorityTest {
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
 
-        //First dropoff 1 group of 1 person
+        //Dropoff 1 group of 1 person
         String content = "ID=0";
         HttpEntity<String> request = new HttpEntity<>(content, headers);
         response = testRestTemplate.exchange("/dropoff", HttpMethod.POST, request, String.class);
         assertEquals(HttpStatus.OK, response.getStatusCode());
 
-        //Locate the last group of 2 people, as the "blocking state" has not been broken yet,
-        //there shouldn't be any car available.
+        //The last group of 1 person found a car, because no car can serve
+        //the groups of 5 people that arrived before.
         content = "ID=18";
         request = new HttpEntity<>(content, headers);
         ResponseEntity<CarDataTransferObject> response1 =
                 testRestTemplate.exchange("/locate", HttpMethod.POST, request, CarDataTransferObject.class);
-        assertEquals(HttpStatus.NO_CONTENT, response1.getStatusCode());
-
-        //Then dropoff again another 1 group of 1 person
-        content = "ID=1";
-        request = new HttpEntity<>(content, headers);
-        response = testRestTemplate.exchange("/dropoff", HttpMethod.POST, request, String.class);
-        assertEquals(HttpStatus.OK, response.getStatusCode());
-
-        //Finally, test if last group of 2 people found a car because the "blocking state"
-        //has been broken.
-        content = "ID=18";
-        request = new HttpEntity<>(content, headers);
-        response1 = testRestTemplate.exchange("/locate", HttpMethod.POST, request, CarDataTransferObject.class);
         assertEquals(HttpStatus.OK, response1.getStatusCode());
+
+        //The groups of 5 people are still waiting.
+        for (int i = 16; i < 18; i++) {
+            request = new HttpEntity<>("ID=" + i, headers);
+            response1 = testRestTemplate.exchange("/locate", HttpMethod.POST, request, CarDataTransferObject.class);
+            assertEquals(HttpStatus.NO_CONTENT, response1.getStatusCode());
+        }
     }
 }
\ No newline at end of file
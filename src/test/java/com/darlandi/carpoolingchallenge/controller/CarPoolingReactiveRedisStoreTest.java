@@ -0,0 +1,11 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Run the basic commands of the Rest API with the reactive handlers and the cars stored
+ * in Redis, where the journeys are located with the reactive Redis client.
+ */
+@TestPropertySource(properties = "carpooling.store=redis")
+class CarPoolingReactiveRedisStoreTest extends CarPoolingReactiveTest {
+}
@@ -0,0 +1,30 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Run the basic commands of the Rest API with the reactive handlers.
+ * The test context reads the type of web application from the test properties, not from
+ * the profile.
+ */
+@ActiveProfiles("reactive")
+@TestPropertySource(properties = "spring.main.web-application-type=reactive")
+@Import(CarPoolingReactiveTest.RestTemplateConfiguration.class)
+class CarPoolingReactiveTest extends CarPoolingControllerTest {
+
+    /**
+     * The RestTemplateBuilder is only auto-configured in servlet applications.
+     */
+    @TestConfiguration
+    static class RestTemplateConfiguration {
+        @Bean
+        RestTemplateBuilder restTemplateBuilder() {
+            return new RestTemplateBuilder();
+        }
+    }
+}
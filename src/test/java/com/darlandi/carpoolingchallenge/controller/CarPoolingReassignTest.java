@@ -0,0 +1,93 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import com.darlandi.carpoolingchallenge.controller.embeddedRedisConfigurationTest.TestRedisConfiguration;
+import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.*;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * These tests check that a drop-off fills all the freed seats: There is only 1 car
+ * of 6 seats, taken by a group of 6 people. Then come two groups of 2 people, a group
+ * of 6 people and a last group of 2 people, all of them waiting. When the first group
+ * leaves the car, the two first groups of 2 people ride, the group of 6 people does not
+ * fit in the 2 remaining seats, so the last group of 2 people rides too.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = TestRedisConfiguration.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CarPoolingReassignTest {
+
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        restTemplateBuilder = restTemplateBuilder.rootUri("http://localhost:" + port);
+        testRestTemplate = new TestRestTemplate(restTemplateBuilder);
+    }
+
+    @Test
+    @DisplayName("Load a car of 6 seats and add the journeys")
+    @Order(1)
+    void testLoadCarAndJourneys() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+
+        String json = """
+                [
+                 {"id": 1,"seats": 6}
+                ]
+                """;
+        HttpEntity<String> request = new HttpEntity<>(json, headers);
+        ResponseEntity<String> response = testRestTemplate.exchange("/cars", HttpMethod.PUT, request, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        int[] people = {6, 2, 2, 6, 2};
+        for (int i = 0; i < people.length; i++) {
+            String jsonMessage = String.format("{\"id\": %d,\"people\": %d}", i, people[i]);
+            request = new HttpEntity<>(jsonMessage, headers);
+            response = testRestTemplate.exchange("/journey", HttpMethod.POST, request, String.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+        }
+    }
+
+    @Test
+    @DisplayName("Dropoff the group of 6 people and fill the car with the waiting groups that fit")
+    @Order(2)
+    void testDropOffFillsTheCar() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+
+        HttpEntity<String> request = new HttpEntity<>("ID=0", headers);
+        ResponseEntity<String> response = testRestTemplate.exchange("/dropoff", HttpMethod.POST, request, String.class);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+
+        for (int i = 1; i < 5; i++) {
+            request = new HttpEntity<>("ID=" + i, headers);
+            ResponseEntity<CarDataTransferObject> response1 =
+                    testRestTemplate.exchange("/locate", HttpMethod.POST, request, CarDataTransferObject.class);
+            //The group of 6 people keeps waiting
+            if (i == 3) {
+                assertEquals(HttpStatus.NO_CONTENT, response1.getStatusCode());
+            } else {
+                assertEquals(HttpStatus.OK, response1.getStatusCode());
+                assertEquals(1L, response1.getBody().getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Run the batch endpoint tests with the cars and the waiting list stored in Redis.
+ */
+@TestPropertySource(properties = "carpooling.store=redis")
+class CarPoolingRedisBatchTest extends CarPoolingBatchTest {
+}
@@ -0,0 +1,10 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Run the streaming load tests with the cars stored in Redis.
+ */
+@TestPropertySource(properties = "carpooling.store=redis")
+class CarPoolingRedisCarStreamTest extends CarPoolingCarStreamTest {
+}
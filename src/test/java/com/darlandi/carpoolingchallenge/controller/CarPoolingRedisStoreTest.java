@@ -0,0 +1,80 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.repository.CarPoolingRepository;
+import com.darlandi.carpoolingchallenge.repository.JourneyRepository;
+import com.darlandi.carpoolingchallenge.repository.WaitingQueue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Run the basic commands of the Rest API with the cars stored in Redis.
+ */
+@TestPropertySource(properties = "carpooling.store=redis")
+class CarPoolingRedisStoreTest extends CarPoolingControllerTest {
+
+    @Autowired
+    private CarPoolingRepository carPoolingRepository;
+
+    @Autowired
+    private JourneyRepository journeyRepository;
+
+    @Autowired
+    private WaitingQueue waitingQueue;
+
+    @Autowired
+    private RedisTemplate<String, byte[]> redisTemplate;
+
+    @Test
+    @DisplayName("The car index matches the buckets of available seats")
+    @Order(6)
+    void testCarIndexConsistency() {
+        assertEquals(2, carPoolingRepository.totalSize());
+        assertEquals(1, carPoolingRepository.get(2L).get().getAvailableSeats());
+        assertTrue(carPoolingRepository.checkConsistency().isEmpty());
+    }
+
+    @Test
+    @DisplayName("A reset empties the keys at once and the old generation is reaped")
+    @Order(7)
+    void testResetGeneration() throws InterruptedException {
+        carPoolingRepository.deleteAll();
+        journeyRepository.deleteAll();
+
+        assertEquals(0, carPoolingRepository.totalSize());
+        assertTrue(journeyRepository.get(1L).isEmpty());
+        for (int i = 0; i < 50 && !redisTemplate.keys("GEN:*").isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+        assertTrue(redisTemplate.keys("GEN:*").isEmpty());
+    }
+
+    @Test
+    @DisplayName("A journey queued again with another group size only waits in its new sub-queue")
+    @Order(8)
+    void testRequeueOtherSize() {
+        waitingQueue.addLast(1L, 2);
+        waitingQueue.addLast(2L, 3);
+        waitingQueue.addLast(1L, 4);
+        waitingQueue.addFirst(2L, 5);
+        waitingQueue.addAllLast(List.of(new Journey(3L, 1), new Journey(2L, 6)));
+
+        assertEquals(List.of(1L, 3L, 2L), waitingQueue.getAll());
+        assertEquals(3, waitingQueue.size());
+        assertEquals(0, waitingQueue.size(2) + waitingQueue.size(3) + waitingQueue.size(5));
+        assertEquals(1, waitingQueue.size(4));
+        assertEquals(1, waitingQueue.size(6));
+        assertTrue(waitingQueue.remove(2L));
+        assertEquals(List.of(1L, 3L), waitingQueue.getAll());
+        waitingQueue.clear();
+    }
+}
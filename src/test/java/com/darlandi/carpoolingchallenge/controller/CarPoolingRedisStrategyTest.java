@@ -0,0 +1,11 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Run the assignment strategy tests with the cars and the waiting list stored in Redis,
+ * where the classes of car are tried by the assign script.
+ */
+@TestPropertySource(properties = "carpooling.store=redis")
+class CarPoolingRedisStrategyTest extends CarPoolingStrategyTest {
+}
@@ -0,0 +1,69 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import com.darlandi.carpoolingchallenge.controller.embeddedRedisConfigurationTest.TestRedisConfiguration;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the readiness of the service after the startup warm-up.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = TestRedisConfiguration.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class CarPoolingStartupTest {
+
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        restTemplateBuilder = restTemplateBuilder.rootUri("http://localhost:" + port);
+        testRestTemplate = new TestRestTemplate(restTemplateBuilder);
+    }
+
+    @Test
+    @DisplayName("The service is ready after the warm-up, and the warm-up journeys are not kept")
+    @Order(1)
+    void testReadyAfterWarmup() {
+        assertEquals(HttpStatus.OK, testRestTemplate.getForEntity("/status", String.class).getStatusCode());
+        ResponseEntity<String> readiness = testRestTemplate.getForEntity("/actuator/health/readiness", String.class);
+        assertEquals(HttpStatus.OK, readiness.getStatusCode());
+        assertTrue(readiness.getBody().contains("UP"));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        ResponseEntity<String> response =
+                testRestTemplate.postForEntity("/locate", new HttpEntity<>("ID=1", headers), String.class);
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("The status is unavailable while the service refuses traffic")
+    @Order(2)
+    void testNotReady() {
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+        try {
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, testRestTemplate.getForEntity("/status", String.class).getStatusCode());
+        } finally {
+            AvailabilityChangeEvent.publish(applicationContext, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+        assertEquals(HttpStatus.OK, testRestTemplate.getForEntity("/status", String.class).getStatusCode());
+    }
+}
@@ -0,0 +1,98 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import com.darlandi.carpoolingchallenge.controller.embeddedRedisConfigurationTest.TestRedisConfiguration;
+import com.darlandi.carpoolingchallenge.entities.CarDataTransferObject;
+import org.junit.jupiter.api.*;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.*;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * These tests check the assignment strategy is configurable: with the worst fit, a group
+ * of 2 people takes the car of 6 seats instead of the car of 4 seats, and the next group
+ * of 4 people takes the 4 seats left in the same car, the one with more seats.
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(classes = TestRedisConfiguration.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@TestPropertySource(properties = "carpooling.assignment.strategy=worst-fit")
+class CarPoolingStrategyTest {
+
+    private TestRestTemplate testRestTemplate;
+
+    @Autowired
+    private RestTemplateBuilder restTemplateBuilder;
+
+    @LocalServerPort
+    private int port;
+
+    @BeforeEach
+    void setUp() {
+        restTemplateBuilder = restTemplateBuilder.rootUri("http://localhost:" + port);
+        testRestTemplate = new TestRestTemplate(restTemplateBuilder);
+    }
+
+    @Test
+    @DisplayName("Load a car of 4 seats and a car of 6 seats")
+    @Order(1)
+    void testLoadAvailableCars() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+
+        String json = """
+                [
+                 {"id": 1,"seats": 4},
+                 {"id": 2,"seats": 6}
+                ]
+                """;
+
+        HttpEntity<String> request = new HttpEntity<>(json, headers);
+
+        ResponseEntity<String> response = testRestTemplate.exchange("/cars", HttpMethod.PUT, request, String.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Add groups of 2, 4 and 4 people")
+    @Order(2)
+    void testAddJourneys() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+
+        int[] people = {2, 4, 4};
+        for (int i = 0; i < people.length; i++) {
+            String json = String.format("{\"id\": %d,\"people\": %d}", i + 1, people[i]);
+            HttpEntity<String> request = new HttpEntity<>(json, headers);
+            ResponseEntity<String> response = testRestTemplate.exchange("/journey", HttpMethod.POST, request, String.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+        }
+    }
+
+    @Test
+    @DisplayName("The groups take the car with the most seats available")
+    @Order(3)
+    void testLocateJourneys() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
+        headers.setAccept(Arrays.asList(MediaType.APPLICATION_JSON));
+
+        long[] cars = {2, 2, 1};
+        for (int i = 0; i < cars.length; i++) {
+            HttpEntity<String> request = new HttpEntity<>("ID=" + (i + 1), headers);
+            ResponseEntity<CarDataTransferObject> response =
+                    testRestTemplate.exchange("/locate", HttpMethod.POST, request, CarDataTransferObject.class);
+            assertEquals(HttpStatus.OK, response.getStatusCode());
+            assertEquals(cars[i], response.getBody().getId());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.darlandi.carpoolingchallenge.controller;
+
+import org.apache.tomcat.util.threads.ThreadPoolExecutor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Run the basic commands of the Rest API with the requests handled in virtual threads,
+ * and check the executor of Tomcat: a virtual thread per task on Java 21 or later, and
+ * the pool of platform threads on an older runtime.
+ */
+@TestPropertySource(properties = "carpooling.web.virtual-threads=true")
+class CarPoolingVirtualThreadTest extends CarPoolingControllerTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    @Test
+    @DisplayName("On Java 21 the requests are handled in virtual threads")
+    @Order(6)
+    void testVirtualThreadExecutor() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21);
+        Executor executor = executor();
+        Thread thread = handlerThread(executor);
+
+        assertFalse(executor instanceof ThreadPoolExecutor);
+        assertTrue(thread.getName().startsWith("http-virtual-"));
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+        assertNotEquals(thread.getName(), handlerThread(executor).getName());
+    }
+
+    @Test
+    @DisplayName("Before Java 21 the requests are handled in the pool of platform threads")
+    @Order(7)
+    void testPlatformThreadFallback() throws Exception {
+        assumeTrue(Runtime.version().feature() < 21);
+        Executor executor = executor();
+
+        assertInstanceOf(ThreadPoolExecutor.class, executor);
+        assertTrue(handlerThread(executor).getName().startsWith("http-nio-"));
+    }
+
+    private Executor executor() {
+        return ((TomcatWebServer) applicationContext.getWebServer()).getTomcat().getConnector()
+                .getProtocolHandler().getExecutor();
+    }
+
+    private static Thread handlerThread(Executor executor) throws Exception {
+        CompletableFuture<Thread> thread = new CompletableFuture<>();
+        executor.execute(() -> thread.complete(Thread.currentThread()));
+        return thread.get(5, TimeUnit.SECONDS);
+    }
+}
@@ -8,22 +8,39 @@ import redis.embedded.RedisServer;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+/**
+ * Embedded Redis server for the tests. The server is shared by all the cached
+ * test contexts (e.g. the same tests run with another store), and it is stopped
+ * when the last one is closed.
+ */
 @TestConfiguration
 public class TestRedisConfiguration {
 
-    private RedisServer redisServer;
+    private static RedisServer redisServer;
+    private static int openContexts;
+
+    private final int redisPort;
 
     public TestRedisConfiguration(RedisProperties redisProperties) {
-        this.redisServer = new RedisServer(redisProperties.getRedisPort());
+        this.redisPort = redisProperties.getRedisPort();
     }
 
     @PostConstruct
     public void postConstruct() {
-        redisServer.start();
+        synchronized (TestRedisConfiguration.class) {
+            if (openContexts++ == 0) {
+                redisServer = new RedisServer(redisPort);
+                redisServer.start();
+            }
+        }
     }
 
     @PreDestroy
     public void preDestroy() {
-        redisServer.stop();
+        synchronized (TestRedisConfiguration.class) {
+            if (--openContexts == 0) {
+                redisServer.stop();
+            }
+        }
     }
 }
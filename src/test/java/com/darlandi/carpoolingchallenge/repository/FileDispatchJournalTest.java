@@ -0,0 +1,146 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import com.darlandi.carpoolingchallenge.strategy.BestFitStrategy;
+import com.darlandi.carpoolingchallenge.utils.Constants;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test that the snapshot and the journal recover the same in-memory state.
+ */
+class FileDispatchJournalTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("The state is recovered from the snapshot of the fleet and the journal")
+    void testRecover() throws IOException {
+        Engine engine = new Engine(1_000_000);
+        run(engine);
+        engine.journal.close();
+
+        Engine recovered = new Engine(1_000_000);
+        assertSameState(engine, recovered);
+        recovered.journal.close();
+    }
+
+    @Test
+    @DisplayName("A torn frame at the end of the journal is discarded and truncated")
+    void testTornFrame() throws IOException {
+        Engine engine = new Engine(1_000_000);
+        run(engine);
+        engine.journal.close();
+        Path journal = directory.resolve("journal-1.bin");
+        long size = Files.size(journal);
+        Files.write(journal, new byte[]{0, 0, 0, 17, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        Engine recovered = new Engine(1_000_000);
+        assertSameState(engine, recovered);
+        assertEquals(size, Files.size(journal));
+        recovered.journeyRepository.create(new Journey(100L, 1));
+        recovered.journal.sync();
+        recovered.journal.close();
+
+        assertTrue(new Engine(1_000_000).journeyStore.get(100L).isPresent());
+    }
+
+    @Test
+    @DisplayName("A snapshot is saved every N events and only its journal is kept")
+    void testSnapshotEvents() throws IOException {
+        Engine engine = new Engine(5);
+        run(engine);
+        engine.journal.close();
+
+        Engine recovered = new Engine(5);
+        assertSameState(engine, recovered);
+        try (var files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+        recovered.journal.close();
+    }
+
+    /**
+     * Load a fleet, then assign, wait and drop off journeys one by one and in batches.
+     */
+    private static void run(Engine engine) {
+        FleetLoader loader = engine.carPoolingRepository.newLoader(2);
+        for (long id = 1; id <= 4; id++) {
+            loader.add(new Car(id, 4));
+        }
+        loader.commit();
+        for (long id = 1; id <= 6; id++) {
+            Journey journey = new Journey(id, id <= 3 ? 3 : 2);
+            engine.journeyRepository.create(journey);
+            if (engine.dispatchOperations.assign(journey).isEmpty()) {
+                engine.journeyRepository.addToWaitingList(journey.getId(), journey.getPeople());
+            }
+            engine.journal.sync();
+        }
+        engine.dispatchOperations.dropOff(2L);
+        List<Journey> journeys = List.of(new Journey(7L, 1), new Journey(8L, 6), new Journey(9L, 1));
+        engine.journeyRepository.createAll(journeys);
+        engine.dispatchOperations.assignAll(journeys);
+        engine.journeyRepository.addAllToWaitingList(List.of(journeys.get(1)));
+        engine.journal.sync();
+        engine.dispatchOperations.dropOffAll(List.of(1L, 8L, 42L));
+        engine.journal.sync();
+    }
+
+    private static void assertSameState(Engine expected, Engine actual) {
+        for (int seats = 0; seats <= Constants.MAX_SEATS; seats++) {
+            assertEquals(describe(expected.carStore.getAll(seats)), describe(actual.carStore.getAll(seats)));
+        }
+        assertEquals(expected.waitingQueue.getAll(), actual.waitingQueue.getAll());
+        assertEquals(expected.journeyStore.size(), actual.journeyStore.size());
+        expected.journeyStore.forEach(journey -> {
+            Journey recovered = actual.journeyStore.get(journey.getId()).orElseThrow();
+            assertEquals(journey.getPeople(), recovered.getPeople());
+            assertEquals(journey.getCarId(), recovered.getCarId());
+        });
+    }
+
+    private static List<String> describe(List<Car> cars) {
+        return cars.stream()
+                .map(car -> car.getId() + ":" + car.getSeats() + ":" + car.getAvailableSeats())
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * In-memory stores and repositories, with a journal in the temporary directory.
+     */
+    private class Engine {
+        private final InMemoryCarStore carStore = new InMemoryCarStore();
+        private final InMemoryJourneyStore journeyStore = new InMemoryJourneyStore();
+        private final InMemoryWaitingQueue waitingQueue = new InMemoryWaitingQueue();
+        private final FileDispatchJournal journal;
+        private final CarPoolingRepository carPoolingRepository;
+        private final JourneyRepository journeyRepository;
+        private final StoreDispatchOperations dispatchOperations;
+
+        private Engine(long snapshotEvents) throws IOException {
+            journal = new FileDispatchJournal(carStore, journeyStore, waitingQueue, directory.toString(),
+                    false, snapshotEvents);
+            journal.recover();
+            StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("journal", journal));
+            carPoolingRepository = new CarPoolingRepository(carStore, beanFactory.getBeanProvider(DispatchJournal.class));
+            journeyRepository = new JourneyRepository(journeyStore, waitingQueue,
+                    beanFactory.getBeanProvider(DispatchJournal.class));
+            dispatchOperations = new StoreDispatchOperations(carPoolingRepository, journeyRepository, new BestFitStrategy());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the buckets of the in-memory car store.
+ */
+class InMemoryCarStoreTest {
+
+    private InMemoryCarStore carStore;
+
+    @BeforeEach
+    void setUp() {
+        carStore = new InMemoryCarStore();
+        for (long id = 1; id <= 100; id++) {
+            carStore.create(new Car(id, 4 + (int) (id % 3)));
+        }
+    }
+
+    @Test
+    @DisplayName("Cars are saved in the bucket of their available seats")
+    void testCreate() {
+        assertEquals(100, carStore.totalSize());
+        assertEquals(33, carStore.getAll(4).size());
+        assertEquals(34, carStore.getAll(5).size());
+        assertEquals(33, carStore.getAll(6).size());
+        assertTrue(carStore.getCarSeatsAvailable(3).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A repeated ID does not replace the saved car")
+    void testCreateRepeated() {
+        carStore.create(new Car(1L, 6));
+
+        assertEquals(100, carStore.totalSize());
+        assertEquals(5, carStore.get(1L).get().getSeats());
+    }
+
+    @Test
+    @DisplayName("Moving cars between buckets keeps every car reachable")
+    void testUpdate() {
+        for (long id = 1; id <= 100; id += 2) {
+            Car car = carStore.get(id).get();
+            carStore.update(car.getAvailableSeats() - 3, car);
+            assertEquals(car.getSeats() - 3, car.getAvailableSeats());
+        }
+
+        for (long id = 1; id <= 100; id++) {
+            Optional<Car> car = carStore.get(id);
+            assertTrue(car.isPresent());
+            int expected = id % 2 == 1 ? car.get().getSeats() - 3 : car.get().getSeats();
+            assertEquals(expected, car.get().getAvailableSeats());
+            assertTrue(carStore.getAll(expected).stream().anyMatch(c -> c.getId() == car.get().getId()));
+        }
+        assertEquals(100, carStore.totalSize());
+        assertTrue(carStore.checkConsistency().isEmpty());
+    }
+
+    @Test
+    @DisplayName("The first car of a bucket has the required seats available")
+    void testGetCarSeatsAvailable() {
+        Car car = carStore.getCarSeatsAvailable(6).get();
+        carStore.update(0, car);
+
+        assertEquals(6, car.getSeats());
+        assertEquals(car.getId(), carStore.getCarSeatsAvailable(0).get().getId());
+        assertEquals(32, carStore.getAll(6).size());
+    }
+
+    @Test
+    @DisplayName("A car is found by its seats available and its total seats")
+    void testGetCar() {
+        Car car = carStore.getCar(5, 5).get();
+        carStore.update(2, car);
+
+        assertEquals(5, car.getSeats());
+        assertTrue(carStore.getCar(5, 6).isEmpty());
+        assertEquals(car.getId(), carStore.getCar(2, 5).get().getId());
+        assertTrue(carStore.getCar(2, 4).isEmpty());
+        assertEquals(33, carStore.getAll(5).size());
+        assertEquals(1, carStore.size(2));
+        assertTrue(carStore.checkConsistency().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Clear all the cars")
+    void testDeleteAll() {
+        carStore.deleteAll();
+
+        assertEquals(0, carStore.totalSize());
+        assertTrue(carStore.get(1L).isEmpty());
+        assertTrue(carStore.getCarSeatsAvailable(4).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A loaded fleet replaces the cars only when it is committed")
+    void testLoader() {
+        FleetLoader loader = carStore.newLoader(10);
+        for (long id = 1000; id < 1050; id++) {
+            loader.add(new Car(id, 4));
+        }
+        assertEquals(100, carStore.totalSize());
+        assertTrue(carStore.get(1000L).isEmpty());
+
+        loader.commit();
+
+        assertEquals(50, carStore.totalSize());
+        assertTrue(carStore.get(1L).isEmpty());
+        assertEquals(50, carStore.getAll(4).size());
+        assertTrue(carStore.checkConsistency().isEmpty());
+    }
+
+    @Test
+    @DisplayName("An aborted load keeps the current fleet")
+    void testLoaderAbort() {
+        FleetLoader loader = carStore.newLoader(10);
+        loader.add(new Car(1000L, 4));
+        loader.abort();
+
+        assertEquals(100, carStore.totalSize());
+        assertTrue(carStore.get(1000L).isEmpty());
+    }
+}
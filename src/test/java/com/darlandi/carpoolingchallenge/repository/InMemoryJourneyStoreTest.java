@@ -0,0 +1,81 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the columns and the slots of the in-memory journey store.
+ */
+class InMemoryJourneyStoreTest {
+    private InMemoryJourneyStore journeyStore;
+
+    @BeforeEach
+    void setUp() {
+        journeyStore = new InMemoryJourneyStore();
+    }
+
+    @Test
+    @DisplayName("A journey is saved once, and its car is saved on update")
+    void testCreateAndUpdate() {
+        journeyStore.create(new Journey(1L, 4));
+        journeyStore.create(new Journey(1L, 2));
+        assertEquals(4, journeyStore.get(1L).get().getPeople());
+        assertNull(journeyStore.get(1L).get().getCarId());
+
+        Journey journey = new Journey(1L, 4);
+        journey.setCarId(0L);
+        journeyStore.update(journey);
+        assertEquals(0L, journeyStore.get(1L).get().getCarId());
+        assertEquals(4, journeyStore.get(1L).get().getPeople());
+        assertTrue(journeyStore.get(2L).isEmpty());
+        assertEquals(1, journeyStore.size());
+    }
+
+    @Test
+    @DisplayName("Deleting a journey moves the last one to its slot")
+    void testDelete() {
+        for (long id = 1; id <= 100; id++) {
+            Journey journey = new Journey(id, (int) (id % 6) + 1);
+            if (id % 2 == 0) {
+                journey.setCarId(1000 + id);
+            }
+            journeyStore.create(journey);
+        }
+        for (long id = 1; id <= 100; id += 3) {
+            journeyStore.delete(id);
+        }
+        journeyStore.delete(1000L);
+
+        assertEquals(66, journeyStore.size());
+        for (long id = 1; id <= 100; id++) {
+            Optional<Journey> journey = journeyStore.get(id);
+            if (id % 3 == 1) {
+                assertTrue(journey.isEmpty());
+            } else {
+                assertEquals((int) (id % 6) + 1, journey.get().getPeople());
+                assertEquals(id % 2 == 0 ? Long.valueOf(1000 + id) : null, journey.get().getCarId());
+            }
+        }
+        List<Optional<Journey>> journeys = journeyStore.getAll(List.of(1L, 2L));
+        assertTrue(journeys.get(0).isEmpty());
+        assertEquals(2L, journeys.get(1).get().getId());
+    }
+
+    @Test
+    @DisplayName("Clearing the store removes all the journeys")
+    void testClear() {
+        journeyStore.create(new Journey(1L, 1));
+        journeyStore.clear();
+        assertEquals(0, journeyStore.size());
+        assertTrue(journeyStore.get(1L).isEmpty());
+        journeyStore.create(new Journey(1L, 3));
+        assertEquals(3, journeyStore.get(1L).get().getPeople());
+    }
+}
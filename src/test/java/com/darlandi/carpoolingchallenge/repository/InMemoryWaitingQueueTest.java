@@ -0,0 +1,109 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the order of the in-memory waiting queue.
+ */
+class InMemoryWaitingQueueTest {
+
+    private InMemoryWaitingQueue waitingQueue;
+
+    @BeforeEach
+    void setUp() {
+        waitingQueue = new InMemoryWaitingQueue();
+        for (long id = 1; id <= 5; id++) {
+            waitingQueue.addLast(id, (int) id);
+        }
+    }
+
+    @Test
+    @DisplayName("Journeys are kept in arrival order")
+    void testAddLast() {
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), waitingQueue.getAll());
+        assertEquals(1L, waitingQueue.first().get());
+        assertEquals(5, waitingQueue.size());
+    }
+
+    @Test
+    @DisplayName("A journey added to the top is the first one")
+    void testAddFirst() {
+        waitingQueue.addFirst(6L, 2);
+
+        assertEquals(List.of(6L, 1L, 2L, 3L, 4L, 5L), waitingQueue.getAll());
+        assertEquals(6L, waitingQueue.first().get());
+    }
+
+    @Test
+    @DisplayName("Remove journeys from the head, the middle and the tail")
+    void testRemove() {
+        assertTrue(waitingQueue.remove(1L));
+        assertTrue(waitingQueue.remove(3L));
+        assertTrue(waitingQueue.remove(5L));
+        assertFalse(waitingQueue.remove(5L));
+
+        assertEquals(List.of(2L, 4L), waitingQueue.getAll());
+        assertEquals(2L, waitingQueue.first().get());
+
+        waitingQueue.addLast(7L, 1);
+        waitingQueue.addFirst(8L, 6);
+        assertEquals(List.of(8L, 2L, 4L, 7L), waitingQueue.getAll());
+    }
+
+    @Test
+    @DisplayName("Count the waiting journeys of every group size")
+    void testSizeByPeople() {
+        waitingQueue.addLast(6L, 2);
+        waitingQueue.addFirst(2L, 2);
+        waitingQueue.remove(3L);
+
+        assertEquals(1, waitingQueue.size(1));
+        assertEquals(2, waitingQueue.size(2));
+        assertEquals(0, waitingQueue.size(3));
+        assertEquals(0, waitingQueue.size(7));
+        waitingQueue.clear();
+        assertEquals(0, waitingQueue.size(2));
+    }
+
+    @Test
+    @DisplayName("The first journey that fits is the oldest one of the smaller groups")
+    void testFirstFitting() {
+        waitingQueue.addLast(6L, 1);
+
+        assertEquals(1L, waitingQueue.firstFitting(6).get());
+        waitingQueue.remove(1L);
+        assertEquals(2L, waitingQueue.firstFitting(3).get());
+        assertEquals(6L, waitingQueue.firstFitting(1).get());
+        assertTrue(waitingQueue.firstFitting(0).isEmpty());
+        assertEquals(List.of(2L, 3L, 4L, 5L, 6L), waitingQueue.getAll());
+    }
+
+    @Test
+    @DisplayName("A journey queued again with another group size only waits in its new sub-queue")
+    void testRequeueOtherSize() {
+        waitingQueue.addLast(1L, 4);
+        waitingQueue.addFirst(2L, 6);
+
+        assertEquals(List.of(2L, 3L, 4L, 5L, 1L), waitingQueue.getAll());
+        assertEquals(5, waitingQueue.size());
+        assertEquals(0, waitingQueue.size(1) + waitingQueue.size(2));
+        assertEquals(2, waitingQueue.size(4));
+        assertEquals(1, waitingQueue.size(6));
+    }
+
+    @Test
+    @DisplayName("Clear the queue")
+    void testClear() {
+        waitingQueue.clear();
+
+        assertTrue(waitingQueue.first().isEmpty());
+        assertTrue(waitingQueue.getAll().isEmpty());
+        assertEquals(0, waitingQueue.size());
+    }
+}
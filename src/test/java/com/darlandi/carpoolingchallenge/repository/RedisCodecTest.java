@@ -0,0 +1,61 @@
+package com.darlandi.carpoolingchallenge.repository;
+
+import com.darlandi.carpoolingchallenge.entities.Car;
+import com.darlandi.carpoolingchallenge.entities.Journey;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the binary format of the Redis stores.
+ */
+class RedisCodecTest {
+
+    @Test
+    @DisplayName("IDs are encoded as varints and decoded back")
+    void testIds() {
+        long[] ids = {0, 1, -1, 63, 64, 100_000, -100_000, Long.MAX_VALUE, Long.MIN_VALUE};
+        for (long id : ids) {
+            assertEquals(id, RedisCodec.decodeId(RedisCodec.encodeId(id)));
+        }
+        assertEquals(1, RedisCodec.encodeId(63).length);
+        assertEquals(3, RedisCodec.encodeId(100_000).length);
+        assertEquals(10, RedisCodec.encodeId(Long.MIN_VALUE).length);
+    }
+
+    @Test
+    @DisplayName("Cars and journeys are encoded and decoded back")
+    void testEntities() {
+        Car car = new Car(100_000L, 6);
+        car.setAvailableSeats(2);
+        Car decodedCar = RedisCodec.decodeCar(100_000L, RedisCodec.encodeCar(car));
+        assertEquals(6, decodedCar.getSeats());
+        assertEquals(2, decodedCar.getAvailableSeats());
+
+        Journey journey = new Journey(7L, 4);
+        assertNull(RedisCodec.decodeJourney(7L, RedisCodec.encodeJourney(journey)).getCarId());
+        journey.setCarId(-100_000L);
+        Journey decodedJourney = RedisCodec.decodeJourney(7L, RedisCodec.encodeJourney(journey));
+        assertEquals(4, decodedJourney.getPeople());
+        assertEquals(-100_000L, decodedJourney.getCarId());
+    }
+
+    @Test
+    @DisplayName("An entry takes a few bytes instead of the JDK serialization")
+    void testSize() {
+        JdkSerializationRedisSerializer jdk = new JdkSerializationRedisSerializer();
+        Car car = new Car(100_000L, 6);
+        Journey journey = new Journey(100_000L, 4);
+        journey.setCarId(100_000L);
+
+        int carBytes = RedisCodec.encodeId(car.getId()).length + RedisCodec.encodeCar(car).length;
+        int journeyBytes = RedisCodec.encodeId(journey.getId()).length + RedisCodec.encodeJourney(journey).length;
+
+        assertEquals(5, carBytes);
+        assertEquals(7, journeyBytes);
+        assertTrue(jdk.serialize(car.getId()).length + jdk.serialize(car).length > 20 * carBytes);
+        assertTrue(jdk.serialize(journey.getId()).length + jdk.serialize(journey).length > 20 * journeyBytes);
+    }
+}
@@ -0,0 +1,79 @@
+package com.darlandi.carpoolingchallenge.services;
+
+import com.darlandi.carpoolingchallenge.repository.DispatchJournal;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the back-pressure of the dispatch loop and the tasks submitted once it is stopped.
+ */
+class DispatchLoopTest {
+
+    private DispatchLoop dispatchLoop;
+
+    @BeforeEach
+    void setUp() {
+        dispatchLoop = new DispatchLoop(2, Duration.ofMillis(100), new SimpleMeterRegistry(),
+                new StaticListableBeanFactory().getBeanProvider(DispatchJournal.class));
+        dispatchLoop.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        dispatchLoop.stop();
+    }
+
+    @Test
+    @DisplayName("A task is rejected when the buffer stays full, and the queued ones still run")
+    void testFullBuffer() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+        CompletableFuture<Boolean> blocking = dispatchLoop.submit(() -> {
+            running.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+        CompletableFuture<Integer> first = dispatchLoop.submit(runs::incrementAndGet);
+        CompletableFuture<Integer> second = dispatchLoop.submit(runs::incrementAndGet);
+
+        long start = System.nanoTime();
+        CompletableFuture<Integer> rejected = dispatchLoop.submit(runs::incrementAndGet);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+
+        release.countDown();
+        assertTrue(blocking.get(10, TimeUnit.SECONDS));
+        assertEquals(1, first.get(10, TimeUnit.SECONDS));
+        assertEquals(2, second.get(10, TimeUnit.SECONDS));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    @DisplayName("A task submitted once the loop is stopped fails at once and is never run")
+    void testStopped() throws Exception {
+        AtomicInteger runs = new AtomicInteger();
+        assertEquals(1, dispatchLoop.submit(runs::incrementAndGet).get(10, TimeUnit.SECONDS));
+        dispatchLoop.stop();
+
+        CompletableFuture<Integer> rejected = dispatchLoop.submit(runs::incrementAndGet);
+        ExecutionException error = assertThrows(ExecutionException.class, () -> rejected.get(1, TimeUnit.SECONDS));
+        assertInstanceOf(RejectedExecutionException.class, error.getCause());
+        assertEquals(1, runs.get());
+    }
+}
@@ -0,0 +1,80 @@
+package com.darlandi.carpoolingchallenge.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the arrivals of the waiting journeys and the oldest one of every group size.
+ */
+class WaitingAgesTest {
+
+    private WaitingAges waitingAges;
+
+    @BeforeEach
+    void setUp() {
+        waitingAges = new WaitingAges();
+        for (long id = 1; id <= 40; id++) {
+            waitingAges.add(id, 1 + (int) (id % 2), id * 100);
+        }
+    }
+
+    @Test
+    @DisplayName("The oldest arrival of a size is the first one added")
+    void testOldest() {
+        assertEquals(200, waitingAges.oldest(1));
+        assertEquals(100, waitingAges.oldest(2));
+        assertEquals(-1, waitingAges.oldest(3));
+    }
+
+    @Test
+    @DisplayName("Removing journeys moves the oldest arrival to the next one still waiting")
+    void testRemove() {
+        assertEquals(100, waitingAges.remove(1L));
+        assertEquals(500, waitingAges.remove(5L));
+        assertEquals(-1, waitingAges.remove(5L));
+        assertEquals(300, waitingAges.oldest(2));
+
+        assertEquals(300, waitingAges.remove(3L));
+        assertEquals(700, waitingAges.oldest(2));
+        assertEquals(200, waitingAges.oldest(1));
+    }
+
+    @Test
+    @DisplayName("A journey without an arrival starts waiting when it is first read")
+    void testUnknownArrival() {
+        long before = System.nanoTime();
+        long arrival = waitingAges.arrival(100L, 3);
+
+        assertTrue(arrival >= before);
+        assertEquals(arrival, waitingAges.arrival(100L, 3));
+        assertEquals(arrival, waitingAges.oldest(3));
+        assertEquals(4000, waitingAges.arrival(40L, 1));
+    }
+
+    @Test
+    @DisplayName("A journey is waiting from its arrival until it is removed")
+    void testIsWaiting() {
+        assertTrue(waitingAges.isWaiting(1L));
+        assertFalse(waitingAges.isWaiting(41L));
+        waitingAges.remove(1L);
+
+        assertFalse(waitingAges.isWaiting(1L));
+        assertFalse(waitingAges.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Clear all the arrivals")
+    void testClear() {
+        waitingAges.clear();
+
+        assertTrue(waitingAges.isEmpty());
+        assertFalse(waitingAges.isWaiting(2L));
+        assertEquals(-1, waitingAges.oldest(1));
+        assertEquals(-1, waitingAges.remove(1L));
+        waitingAges.add(1L, 1, 50);
+        assertEquals(50, waitingAges.oldest(1));
+    }
+}
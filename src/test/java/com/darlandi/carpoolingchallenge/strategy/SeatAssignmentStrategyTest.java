@@ -0,0 +1,69 @@
+package com.darlandi.carpoolingchallenge.strategy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the order of the classes of car tried by every strategy.
+ */
+class SeatAssignmentStrategyTest {
+
+    @Test
+    @DisplayName("Every strategy tries all the classes where the group fits")
+    void testCandidatesFit() {
+        List<SeatAssignmentStrategy> strategies = List.of(new BestFitStrategy(), new WorstFitStrategy(),
+                new MostOccupiedStrategy(), new LookaheadStrategy());
+        for (SeatAssignmentStrategy strategy : strategies) {
+            List<CarClass> candidates = strategy.candidates(3, people -> people);
+            assertEquals(CarClass.fitting(3).size(), candidates.size());
+            assertTrue(candidates.stream().allMatch(carClass -> carClass.getSeatsAvailable() >= 3));
+        }
+    }
+
+    @Test
+    @DisplayName("Best fit takes the fewest seats available, then the smallest car")
+    void testBestFit() {
+        List<CarClass> candidates = new BestFitStrategy().candidates(3, WaitingDemand.NONE);
+
+        assertEquals(CarClass.of(3, 4), candidates.get(0));
+        assertEquals(CarClass.of(3, 5), candidates.get(1));
+        assertEquals(CarClass.of(6, 6), candidates.get(candidates.size() - 1));
+    }
+
+    @Test
+    @DisplayName("Worst fit takes the most seats available, then the biggest car")
+    void testWorstFit() {
+        List<CarClass> candidates = new WorstFitStrategy().candidates(3, WaitingDemand.NONE);
+
+        assertEquals(CarClass.of(6, 6), candidates.get(0));
+        assertEquals(CarClass.of(5, 6), candidates.get(1));
+        assertEquals(CarClass.of(3, 4), candidates.get(candidates.size() - 1));
+    }
+
+    @Test
+    @DisplayName("Most occupied takes the car with the most seats taken")
+    void testMostOccupied() {
+        List<CarClass> candidates = new MostOccupiedStrategy().candidates(2, WaitingDemand.NONE);
+
+        assertEquals(CarClass.of(2, 6), candidates.get(0));
+        assertEquals(CarClass.of(2, 5), candidates.get(1));
+        assertEquals(CarClass.of(6, 6), candidates.get(candidates.size() - 1));
+    }
+
+    @Test
+    @DisplayName("Lookahead leaves seats that fit the waiting groups")
+    void testLookahead() {
+        LookaheadStrategy strategy = new LookaheadStrategy();
+
+        assertEquals(new BestFitStrategy().candidates(2, WaitingDemand.NONE), strategy.candidates(2, WaitingDemand.NONE));
+
+        List<CarClass> candidates = strategy.candidates(2, people -> people == 4 ? 1 : 0);
+        assertEquals(CarClass.of(2, 4), candidates.get(0));
+        assertEquals(CarClass.of(6, 6), candidates.get(3));
+        assertEquals(CarClass.of(5, 6), candidates.get(candidates.size() - 1));
+    }
+}
@@ -0,0 +1,74 @@
+package com.darlandi.carpoolingchallenge.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test the lock-free ring buffer used by the dispatch loop.
+ */
+class MpscRingBufferTest {
+
+    @Test
+    @DisplayName("Elements are taken in order and a full buffer rejects new ones")
+    void testOfferPoll() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+        assertTrue(buffer.isEmpty());
+        assertNull(buffer.poll());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, buffer.poll());
+        }
+        assertTrue(buffer.isEmpty());
+        assertTrue(buffer.offer(5));
+        assertEquals(5, buffer.poll());
+    }
+
+    @Test
+    @DisplayName("Every element of several producers is taken once and in the order of each producer")
+    void testConcurrentProducers() throws InterruptedException {
+        int producers = 4;
+        int elementsPerProducer = 20_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        List<Thread> threads = new ArrayList<>();
+        for (int producer = 0; producer < producers; producer++) {
+            long id = producer;
+            Thread thread = new Thread(() -> {
+                for (long i = 0; i < elementsPerProducer; i++) {
+                    long[] element = {id, i};
+                    while (!buffer.offer(element)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        long[] expected = new long[producers];
+        int taken = 0;
+        while (taken < producers * elementsPerProducer) {
+            long[] element = buffer.poll();
+            if (element == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            assertEquals(expected[(int) element[0]]++, element[1]);
+            taken++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(buffer.isEmpty());
+    }
+}
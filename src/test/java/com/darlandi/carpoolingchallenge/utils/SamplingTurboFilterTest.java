@@ -0,0 +1,36 @@
+package com.darlandi.carpoolingchallenge.utils;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test the sampling of the high-volume log events.
+ */
+class SamplingTurboFilterTest {
+
+    @Test
+    @DisplayName("Only one of every rate sampled events is logged, the rest are not filtered")
+    void testSampling() {
+        Logger logger = new LoggerContext().getLogger("test");
+        logger.setLevel(Level.INFO);
+        SamplingTurboFilter filter = new SamplingTurboFilter();
+        filter.setRate(3);
+        filter.start();
+
+        int logged = 0;
+        for (int i = 0; i < 9; i++) {
+            if (filter.decide(SamplingTurboFilter.SAMPLED, logger, Level.INFO, "Journey {}", null, null) == FilterReply.NEUTRAL) {
+                logged++;
+            }
+            assertEquals(FilterReply.NEUTRAL, filter.decide(null, logger, Level.INFO, "Journey {}", null, null));
+            assertEquals(FilterReply.NEUTRAL, filter.decide(SamplingTurboFilter.SAMPLED, logger, Level.DEBUG, "Journey {}", null, null));
+        }
+        assertEquals(3, logged);
+    }
+}